@@ -1,8 +1,6 @@
 package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
 
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
@@ -10,142 +8,311 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 
 public class APICaller {
 
-    public static String getApiKey()  {
-        String jsonString = "";
-        try (FileReader in = new FileReader("src/main/resources/YouTube.ApiKey")) {
-            int c;
-            while ((c = in.read()) != -1)
-                jsonString += (char) c;
-            in.close();
-        } catch(Exception e){
-            throw new IllegalStateException("Something went wrong with the YouTube API key: " + e);
-        }
-        return jsonString;
+    //one key per line, the quota of every key adds to the daily budget
+    static final Path API_KEY_FILE = Paths.get("src/main/resources/YouTube.ApiKey");
+
+    private static final ApiKeyPool KEYS = ApiKeyPool.load(API_KEY_FILE);
+    private static final YouTubeClient CLIENT = YouTubeClient.getInstance();
+    private static final SingleFlight<String, String> IN_FLIGHT = new SingleFlight<>();
+    private static final ResponseCache CACHE = ResponseCache.getInstance();
+    private static final QuotaScheduler QUOTA = QuotaScheduler.getInstance();
+
+    static {
+        QUOTA.setDailyBudget(KEYS.getDailyBudget());
+    }
+
+    //number of keys which are not out of quota
+    public static int getAvailableApiKeyCount() {
+        return KEYS.getAvailableCount();
+    }
+
+    //how long a cached response is used before it is revalidated
+    static final Duration PLAYLIST_TTL = Duration.ofHours(1);
+    static final Duration SEARCH_TTL = Duration.ofHours(12); //search calls are expensive (100 units)
+    static final Duration COMMENTS_TTL = Duration.ofHours(6);
+    static final Duration VIDEO_INFO_TTL = Duration.ofHours(1);
+
+    static final int PLAYLIST_PAGE_SIZE = 10;
+
+    //number of calls which were answered by an identical call that was already running
+    public static long getCoalescedCallCount() {
+        return IN_FLIGHT.getCoalescedCount();
+    }
+
+    public static long getCallCount() {
+        return IN_FLIGHT.getCallCount();
+    }
+
+    public static long getCacheHitCount() {
+        return CACHE.getHitCount();
+    }
+
+    public static long getCacheMissCount() {
+        return CACHE.getMissCount();
+    }
+
+    //number of cache misses which were answered with a 304 (Not Modified) instead of a full body
+    public static long getCacheRevalidatedCount() {
+        return CACHE.getRevalidatedCount();
+    }
+
+    //number of failed calls which were answered with an expired cache entry
+    public static long getCacheStaleCount() {
+        return CACHE.getStaleCount();
+    }
+
+    //quota units spent today (the quota resets at midnight Pacific time)
+    public static long getQuotaUsed() {
+        return QUOTA.getUsedUnits();
+    }
+
+    public static long getQuotaRemaining() {
+        return QUOTA.getRemainingUnits();
     }
 
-    static final String API_KEY = getApiKey();
+    //number of calls which were not made because the rest of the quota is reserved for more important calls
+    public static long getQuotaRejectedCount() {
+        return QUOTA.getRejectedCount();
+    }
 
     public static String getVideosByPlaylistId(String playlistId) throws IOException, InterruptedException {
-        HttpClient client = HttpClient.newHttpClient();
-        String URL = "https://youtube.googleapis.com/youtube/v3/playlistItems?" +
-                "&part=snippet" +
-                "&playlistId=" + playlistId +
-                "&key=" + API_KEY +
-                "&maxResults=" + 10;
-        HttpRequest request = HttpRequest.newBuilder(
-                URI.create(URL))
-                .header("accept", "application/json")
-                .build();
-        HttpResponse<String> response = client.send(request, BodyHandlers.ofString());
+        return get(playlistItemsUrl(playlistId), PLAYLIST_TTL);
+    }
 
-        return response.body();
+    public static CompletableFuture<String> getVideosByPlaylistIdAsync(String playlistId) {
+        return getAsync(playlistItemsUrl(playlistId), PLAYLIST_TTL);
+    }
+
+    //one page of a playlist, pageToken is the nextPageToken of the previous page or null for the first page
+    public static String getVideosByPlaylistId(String playlistId, String pageToken)
+            throws IOException, InterruptedException {
+        return get(playlistItemsUrl(playlistId, pageToken), PLAYLIST_TTL);
     }
     
     public static String getRelatedVideos(String videoId, Language language) throws IOException, InterruptedException {
-        HttpClient client = HttpClient.newHttpClient();
+        return get(relatedVideosUrl(videoId, language), SEARCH_TTL);
+    }
+
+    public static CompletableFuture<String> getRelatedVideosAsync(String videoId, Language language) {
+        return getAsync(relatedVideosUrl(videoId, language), SEARCH_TTL);
+    }
+    
+    //example location (37.42307,-122.08427)
+    public static String getVideosByLocation(String location, Language language)
+            throws IOException, InterruptedException {
+        return get(videosByLocationUrl(location, language), SEARCH_TTL);
+    }
+
+    public static CompletableFuture<String> getVideosByLocationAsync(String location, Language language) {
+        return getAsync(videosByLocationUrl(location, language), SEARCH_TTL);
+    }
+    
+    public static String getVideosByQuery(String query, Language language) throws IOException, InterruptedException {
+        return get(videosByQueryUrl(query, language), SEARCH_TTL);
+    }
+
+    public static CompletableFuture<String> getVideosByQueryAsync(String query, Language language) {
+        return getAsync(videosByQueryUrl(query, language), SEARCH_TTL);
+    }
+    
+    public static String getCommentsByVideoId(String videoId) throws IOException, InterruptedException {
+        return get(commentsUrl(videoId), COMMENTS_TTL);
+    }
+
+    public static CompletableFuture<String> getCommentsByVideoIdAsync(String videoId) {
+        return getAsync(commentsUrl(videoId), COMMENTS_TTL);
+    }
+
+    public static String getVideoInfoByVideoId(String videoId) throws IOException, InterruptedException {
+        return get(videoInfoUrl(videoId), VIDEO_INFO_TTL);
+    }
+
+    public static CompletableFuture<String> getVideoInfoByVideoIdAsync(String videoId) {
+        return getAsync(videoInfoUrl(videoId), VIDEO_INFO_TTL);
+    }
+
+    //stats and contentDetails of up to 50 videos in one call (costs 1 unit like a single video)
+    public static String getVideoInfoByVideoIds(List<String> videoIds) throws IOException, InterruptedException {
+        return get(videoInfoUrl(videoIds), VIDEO_INFO_TTL);
+    }
 
-        String languageString = language != null ? "&relevanceLanguage=" + language.getISO_639_1_Code() : "";
-        String URL = "https://youtube.googleapis.com/youtube/v3/search?" +
+    public static CompletableFuture<String> getVideoInfoByVideoIdsAsync(List<String> videoIds) {
+        return getAsync(videoInfoUrl(videoIds), VIDEO_INFO_TTL);
+    }
+
+    //Answers from the cache while the cached response is younger than ttl. Otherwise YouTube is asked, with the
+    //ETag of the cached response if there is one, so unchanged data only costs a 304 instead of the full body.
+    //Identical requests which run at the same time (e.g. several lobbies starting on the same playlist) share one call.
+    //Only requests of the same priority share a call: the quota may reject a background call which it would still
+    //allow for a game that is waiting.
+    //Every attempt of the call is scheduled by the QuotaScheduler with the priority of the calling thread, the
+    //EndpointGuard retries, hedges and stops calling an endpoint which keeps failing. If the call fails in the end,
+    //the cached response is returned even if it is expired.
+    private static CompletableFuture<String> getAsync(String url, Duration ttl) {
+        ResponseCache.Entry cached = CACHE.get(url);
+        if (cached != null && cached.isFresh(ttl)) {
+            CACHE.recordHit();
+            return CompletableFuture.completedFuture(cached.body);
+        }
+        CACHE.recordMiss();
+        var priority = CallPriority.current();
+        var endpoint = QuotaScheduler.Endpoint.of(url);
+        return IN_FLIGHT.run(url + "|" + priority, () -> EndpointGuard.forEndpoint(endpoint).call(
+                sending -> QUOTA.submit(endpoint, priority, () -> {
+                    sending.run();
+                    return send(url, cached == null ? null : cached.etag, endpoint, priority);
+                }))
+                .handle((response, e) -> {
+                    if (e == null && response.statusCode() < 500) {
+                        return fromResponse(url, cached, response);
+                    }
+                    if (cached != null) {
+                        System.out.println("Calling the YT API did not work, using the expired cache entry: "
+                                + (e != null ? e : "status " + response.statusCode()));
+                        CACHE.recordStale();
+                        return cached.body;
+                    }
+                    if (e != null) {
+                        throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+                    }
+                    return response.body();
+                }));
+    }
+
+    private static String get(String url, Duration ttl) throws IOException, InterruptedException {
+        try {
+            return getAsync(url, ttl).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Calling the YT API did not work", e.getCause());
+        }
+    }
+
+    private static String fromResponse(String url, ResponseCache.Entry cached, HttpResponse<String> response) {
+        return CACHE.store(url, cached, response.statusCode(), response.body(),
+                response.headers().firstValue("etag").orElse(null));
+    }
+
+    //sends the call with the least used key. If YouTube says the quota of that key is exceeded, the key is taken out
+    //of rotation and the call is sent again with the next key. The second call costs units as well, so it is
+    //scheduled like the first one.
+    private static CompletableFuture<HttpResponse<String>> send(String url, String etag,
+            QuotaScheduler.Endpoint endpoint, CallPriority priority) {
+        ApiKeyPool.Key key;
+        try {
+            key = KEYS.acquire(endpoint.cost);
+        } catch (IllegalStateException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return CLIENT.getAsync(withKey(url, key), etag, endpoint.timeout).thenCompose(response -> {
+            if (!ApiKeyPool.isQuotaExceeded(response)) {
+                return CompletableFuture.completedFuture(response);
+            }
+            System.out.println("Quota of YouTube API " + key + " exceeded, it is not used until the quota resets");
+            QUOTA.forfeit(KEYS.disable(key));
+            if (KEYS.getAvailableCount() == 0) {
+                return CompletableFuture.completedFuture(response);
+            }
+            return QUOTA.submit(endpoint, priority, () -> send(url, etag, endpoint, priority));
+        });
+    }
+
+    private static String withKey(String url, ApiKeyPool.Key key) { //the key is not part of the cache key
+        return url + "&key=" + key.value;
+    }
+
+    //url builders----------------------------------
+
+    private static String playlistItemsUrl(String playlistId) {
+        return playlistItemsUrl(playlistId, null);
+    }
+
+    private static String playlistItemsUrl(String playlistId, String pageToken) {
+        return "https://youtube.googleapis.com/youtube/v3/playlistItems?" +
+                "&part=snippet" +
+                "&playlistId=" + playlistId +
+                "&maxResults=" + PLAYLIST_PAGE_SIZE +
+                (pageToken != null ? "&pageToken=" + encodeValue(pageToken) : "");
+    }
+
+    private static String relatedVideosUrl(String videoId, Language language) {
+        return "https://youtube.googleapis.com/youtube/v3/search?" +
                 "&part=snippet" +
                 "&relatedToVideoId=" + videoId +
-                "&key=" + API_KEY +
                 "&maxResults=" + 10 +
                 "&safeSearch=" + "moderate" +
                 "&type=" + "video" +
-                languageString;
-        HttpRequest request = HttpRequest.newBuilder(
-                URI.create(URL))
-                .header("accept", "application/json")
-                .build();
-        HttpResponse<String> response = client.send(request, BodyHandlers.ofString());
-
-        return response.body();
+                languageString(language);
     }
-    
-    //example location (37.42307,-122.08427)
-    public static String getVideosByLocation(String location, Language language)
-            throws IOException, InterruptedException {
-        HttpClient client = HttpClient.newHttpClient();
 
-        String languageString = language != null ? "&relevanceLanguage=" + language.getISO_639_1_Code() : "";
-        String URL = "https://youtube.googleapis.com/youtube/v3/search?" +
+    private static String videosByLocationUrl(String location, Language language) {
+        return "https://youtube.googleapis.com/youtube/v3/search?" +
                 "&part=snippet" +
                 "&location=" + encodeValue(location) +
                 "&locationRadius=" + "250km" +
-                "&key=" + API_KEY +
                 "&maxResults=" + 10 +
                 "&safeSearch=" + "moderate" +
                 "&type=" + "video" +
-                languageString;
-        HttpRequest request = HttpRequest.newBuilder(
-                URI.create(URL))
-                .header("accept", "application/json")
-                .build();
-        HttpResponse<String> response = client.send(request, BodyHandlers.ofString());
-
-        return response.body();
+                languageString(language);
     }
-    
-    public static String getVideosByQuery(String query, Language language) throws IOException, InterruptedException {
-        HttpClient client = HttpClient.newHttpClient();
 
-        String languageString = language != null ? "&relevanceLanguage=" + language.getISO_639_1_Code() : "";
-        String URL = "https://youtube.googleapis.com/youtube/v3/search?" +
+    private static String videosByQueryUrl(String query, Language language) {
+        return "https://youtube.googleapis.com/youtube/v3/search?" +
                 "&part=snippet" +
                 "&q=" + encodeValue(query) +
-                "&key=" + API_KEY +
                 "&maxResults=" + 30 +
                 "&safeSearch=" + "moderate" +
                 "&type=" + "video" +
-                languageString;
-        HttpRequest request = HttpRequest.newBuilder(
-                URI.create(URL))
-                .header("accept", "application/json")
-                .build();
-        HttpResponse<String> response = client.send(request, BodyHandlers.ofString());
-
-        return response.body();
+                languageString(language);
     }
-    
-    public static String getCommentsByVideoId(String videoId) throws IOException, InterruptedException {
-        HttpClient client = HttpClient.newHttpClient();
-        String URL = "https://youtube.googleapis.com/youtube/v3/commentThreads?" +
+
+    private static String commentsUrl(String videoId) {
+        return "https://youtube.googleapis.com/youtube/v3/commentThreads?" +
                 "&part=snippet" +
                 "&videoId=" + videoId +
-                "&key=" + API_KEY +
                 "&maxResults=" + 100 +
                 "&order=" + "relevance";
-        HttpRequest request = HttpRequest.newBuilder(
-                URI.create(URL))
-                .header("accept", "application/json")
-                .build();
-        HttpResponse<String> response = client.send(request, BodyHandlers.ofString());
-
-        return response.body();
     }
 
-    public static String getVideoInfoByVideoId(String videoId) throws IOException, InterruptedException {
-        HttpClient client = HttpClient.newHttpClient();
-        String URL = "https://youtube.googleapis.com/youtube/v3/videos?" +
+    private static String videoInfoUrl(String videoId) {
+        return "https://youtube.googleapis.com/youtube/v3/videos?" +
                 "&part=statistics,contentDetails" + 
-                "&id=" + videoId +
-                "&key=" + API_KEY;
-        HttpRequest request = HttpRequest.newBuilder(
-                URI.create(URL))
-                .header("accept", "application/json")
-                .build();
-        HttpResponse<String> response = client.send(request, BodyHandlers.ofString());
+                "&id=" + videoId;
+    }
 
-        return response.body();
+    private static String videoInfoUrl(List<String> videoIds) {
+        if (videoIds.isEmpty() || videoIds.size() > VideoStatsCache.MAX_IDS_PER_CALL) {
+            throw new IllegalArgumentException("Between 1 and " + VideoStatsCache.MAX_IDS_PER_CALL
+                    + " video ids can be requested at once (were " + videoIds.size() + ")");
+        }
+        var sorted = new ArrayList<>(videoIds); //same ids in any order -> same cache key
+        Collections.sort(sorted);
+        return videoInfoUrl(String.join(",", sorted));
     }
 
+    private static String languageString(Language language) {
+        return language != null ? "&relevanceLanguage=" + language.getISO_639_1_Code() : "";
+    }
 
-    private static String encodeValue(String value) throws UnsupportedEncodingException {
-        return URLEncoder.encode(value, StandardCharsets.UTF_8.toString());
+    private static String encodeValue(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
     }
 
     public static void main(String[] args) throws IOException, InterruptedException {
@@ -7,8 +7,9 @@ import java.time.Duration;
 import java.util.Date;
 import java.text.DateFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
 import org.springframework.data.util.Pair;
 
 import com.google.gson.Gson;
@@ -18,10 +19,14 @@ import com.google.gson.JsonSyntaxException;
 import ch.uzh.ifi.hase.soprafs23.entity.Comment;
 import ch.uzh.ifi.hase.soprafs23.game.Correctness;
 import ch.uzh.ifi.hase.soprafs23.game.Hand;
+import ch.uzh.ifi.hase.soprafs23.game.HandDealer;
 import ch.uzh.ifi.hase.soprafs23.game.VideoData;
 
 
 class APIController {
+    static final int MAX_EXPANSIONS_PER_HARVEST = 2; //related video calls cost as much as a search (100 units)
+    //Gson instances are thread safe, no need to build a new one for every response
+    private static final Gson GSON = new GsonBuilder().setDateFormat(DateFormat.FULL, DateFormat.FULL).create();
 
     public static void main(String[] args) {
         // String response = APICaller.getVideoInfoByVideoId("5yx6BWlEVcY");
@@ -49,21 +54,122 @@ class APIController {
     }
 
     static Pair<VideoData, List<Hand>> readFromFile(String path) throws JsonSyntaxException, FileNotFoundException, IOException {
-        Gson gson = new GsonBuilder().setDateFormat(DateFormat.FULL, DateFormat.FULL).create();
-        return gson.fromJson(APIController.readFile(path), GsonVDandHand.class).get();
+        return GSON.fromJson(APIController.readFile(path), GsonVDandHand.class).get();
     }
 
     //this is the complete function :)
     static Pair<VideoData, List<Hand>> getGameDataByQuery(String query, Language language)
             throws IOException, InterruptedException{
-        return getGameDataFromVidsAndComments(
-                collectCommentsFromVideoList(
-                        fromJsonToVideoList(
-                                APICaller.getVideosByQuery(query, language))));
+        return getGameDataByQuery(query, language, new CommentHarvester());
+    }
+
+    static Pair<VideoData, List<Hand>> getGameDataByQuery(String query, Language language, CommentHarvester harvester)
+            throws IOException, InterruptedException{
+        return getRoundPacksByQuery(query, language, harvester, YTAPIManager.DEFAULT_VIDEOS_PER_HARVEST).get(0).toPair();
     }
 
     static Pair<VideoData, List<Hand>> getGameDataByPlaylist(String playlistId, Language language)
             throws IOException, InterruptedException {
+        return getGameDataByPlaylist(playlistId, language, new CommentHarvester());
+    }
+
+    static Pair<VideoData, List<Hand>> getGameDataByPlaylist(String playlistId, Language language,
+            CommentHarvester harvester) throws IOException, InterruptedException {
+        var temp3 = harvestPlaylist(playlistId, harvester);
+        Pair<VideoData, List<Hand>> temp4;
+        try {
+            temp4 = getGameDataFromVidsAndComments(temp3);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("Was interrupted. Converting Vids and Comments to gameData did not work", e);
+        }catch (Exception e){ 
+            throw new IllegalArgumentException("Converting Vids and Comments to gameData did not work", e);
+        }
+        return temp4;
+    }
+
+    //same as getGameDataByPlaylist, but instead of throwing away all videos except the chosen one every harvested
+    //video becomes the chosen one of its own round. The packs are in random order.
+    //The playlist is read page by page and only until `targetVideos` qualifying videos are found. The next harvest
+    //of the same playlist continues where this one stopped.
+    static List<RoundPack> getRoundPacksByPlaylist(String playlistId, Language language, CommentHarvester harvester,
+            int targetVideos) throws IOException, InterruptedException {
+        List<Pair<VideoList.Item, List<Comment>>> temp3;
+        try {
+            temp3 = PlaylistWalker.forPlaylist(playlistId).next(harvester, targetVideos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("Was interrupted. Collecting comments from the playlist did not Work", e);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Collecting comments from the playlist (" + playlistId + ") did not Work", e);
+        }
+        return convertToRoundPacks(temp3, language);
+    }
+
+    //round packs for the query, one pack per qualifying video. The CommentIndex answers the query if it knows at least
+    //`targetVideos` matching videos, which takes no YT API call at all. Only otherwise YouTube is searched, and the
+    //harvest goes into the index.
+    static List<RoundPack> getRoundPacksByQuery(String query, Language language, CommentHarvester harvester,
+            int targetVideos) throws IOException, InterruptedException {
+        var index = CommentIndex.getInstance();
+        var indexed = index.sample(query, language, targetVideos);
+        if (indexed.size() >= Math.max(targetVideos, CommentHarvester.MIN_VIDEOS)) {
+            List<Pair<VideoList.Item, List<Comment>>> videos = new ArrayList<>();
+            Map<String, VideoStatsCache.Stats> stats = new HashMap<>();
+            for (var document : indexed) {
+                videos.add(document.toHarvested());
+                stats.put(document.videoId, document.stats);
+            }
+            return dealRoundPacks(videos, stats);
+        }
+        List<Pair<VideoList.Item, List<Comment>>> temp3;
+        try {
+            temp3 = harvester.harvestQualifying(fromJsonToVideoList(APICaller.getVideosByQuery(query, language)));
+            CommentHarvester.requireEnoughVideos(temp3.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("Was interrupted. Collecting comments for the query did not Work", e);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Collecting comments for the query (" + query + ") did not Work", e);
+        }
+        return convertToRoundPacks(temp3.size() > targetVideos ? temp3.subList(0, targetVideos) : temp3, language);
+    }
+
+    //round packs for a query without a search call per game. The query is searched once, after that the videos are
+    //taken from the related video graph around its results, which is only expanded when it knows too few videos.
+    static List<RoundPack> getRoundPacksByRelated(String query, Language language, CommentHarvester harvester,
+            int targetVideos) throws IOException, InterruptedException {
+        var graph = RelatedVideoGraph.getInstance();
+        List<Pair<VideoList.Item, List<Comment>>> temp3;
+        try {
+            var seeds = graph.seedsForQuery(query, language);
+            var videos = new VideoList();
+            videos.items = graph.collect(seeds, targetVideos * 2, MAX_EXPANSIONS_PER_HARVEST, language);
+            temp3 = harvester.harvestQualifying(videos);
+            CommentHarvester.requireEnoughVideos(temp3.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("Was interrupted. Collecting comments for the query did not Work", e);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Collecting comments for the query (" + query + ") did not Work", e);
+        }
+        return convertToRoundPacks(temp3, language);
+    }
+
+    private static List<RoundPack> convertToRoundPacks(List<Pair<VideoList.Item, List<Comment>>> temp3,
+            Language language) {
+        try {
+            return toRoundPacks(temp3, language);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("Was interrupted. Converting Vids and Comments to round packs did not work", e);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Converting Vids and Comments to round packs did not work", e);
+        }
+    }
+
+    private static List<Pair<VideoList.Item, List<Comment>>> harvestPlaylist(String playlistId,
+            CommentHarvester harvester) {
         String temp1;
         try {
             temp1  = APICaller.getVideosByPlaylistId(playlistId);
@@ -79,22 +185,14 @@ class APIController {
         } catch (Exception e) {
             throw new IllegalArgumentException("Converting JSON to videolist did not work", e);
         }
-        List<Pair<VideoList.Item, List<CommentList.Item>>> temp3;
-        try {
-            temp3 = collectCommentsFromVideoList(temp2);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Collecting comments from VideoList did not Work", e);
-        }
-        Pair<VideoData, List<Hand>> temp4;
         try {
-            temp4 = getGameDataFromVidsAndComments(temp3);
+            return harvester.harvest(temp2);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            throw new IllegalArgumentException("Was interrupted. Converting Vids and Comments to gameData did not work", e);
-        }catch (Exception e){ 
-            throw new IllegalArgumentException("Converting Vids and Comments to gameData did not work", e);
+            throw new IllegalArgumentException("Was interrupted. Collecting comments from VideoList did not Work", e);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Collecting comments from VideoList did not Work", e);
         }
-        return temp4;
     }
 
     static Integer getVideoCountForPlaylist(String playlistId) throws IOException, InterruptedException {
@@ -106,100 +204,97 @@ class APIController {
     }
     
 
-    // This function mutates the input!! The input is generated by the collectComments from video list function.
+    // The input is generated by the CommentHarvester and is not changed.
     // Returns data ready to use for the game.
-    private static Pair<VideoData, List<Hand>> getGameDataFromVidsAndComments(//long and messy function :(
-            List<Pair<VideoList.Item, List<CommentList.Item>>> listOfVidsAndComments) throws IOException, InterruptedException {
-        Random rand = new Random();
-        Pair<VideoList.Item, List<CommentList.Item>> theChosen = listOfVidsAndComments
-                .get(rand.nextInt(listOfVidsAndComments.size()));
-        listOfVidsAndComments = new ArrayList<>(listOfVidsAndComments); //shallow copy
-        if (!listOfVidsAndComments.remove(theChosen)) {
-            throw new IllegalStateException("Somehow removing the Chosen did not work");
+    private static Pair<VideoData, List<Hand>> getGameDataFromVidsAndComments(
+            List<Pair<VideoList.Item, List<Comment>>> listOfVidsAndComments) throws IOException, InterruptedException {
+        var dealer = HandDealer.create(harvestKey(listOfVidsAndComments));
+        int chosen = dealer.nextInt(listOfVidsAndComments.size());
+        var videoId = listOfVidsAndComments.get(chosen).getFirst().id.videoId;
+        var stats = VideoStatsCache.getInstance().get(videoId);
+        if (stats == null) {
+            throw new IllegalStateException("No statistics found for video " + videoId);
         }
-        List<CommentList.Item> theRest = new ArrayList<>();
-        for (Pair<VideoList.Item, List<CommentList.Item>> p : listOfVidsAndComments) {
-            theRest.addAll(p.getSecond());
+        return toRoundPack(listOfVidsAndComments, chosen, stats, dealer).toPair();
+    }
+
+    //one round pack per harvested video, so a single harvest yields as many rounds as there are videos. The harvest
+    //is added to the CommentIndex, so later queries can be answered without YouTube.
+    private static List<RoundPack> toRoundPacks(List<Pair<VideoList.Item, List<Comment>>> listOfVidsAndComments,
+            Language language) throws IOException, InterruptedException {
+        List<String> videoIds = new ArrayList<>();
+        for (var p : listOfVidsAndComments) {
+            videoIds.add(p.getFirst().id.videoId);
         }
-        //theChosen and theRest is now defined
+        var stats = VideoStatsCache.getInstance().getAll(videoIds); //one call for the whole harvest
+        CommentIndex.getInstance().addAll(listOfVidsAndComments, stats, language);
+        return dealRoundPacks(listOfVidsAndComments, stats);
+    }
+
+    static List<RoundPack> dealRoundPacks(List<Pair<VideoList.Item, List<Comment>>> listOfVidsAndComments,
+            Map<String, VideoStatsCache.Stats> stats) {
+        var dealer = HandDealer.create(harvestKey(listOfVidsAndComments));
+        List<RoundPack> packs = new ArrayList<>();
+        for (int chosen = 0; chosen < listOfVidsAndComments.size(); chosen++) {
+            var videoStats = stats.get(listOfVidsAndComments.get(chosen).getFirst().id.videoId);
+            if (videoStats != null) { //videos without stats (e.g. deleted meanwhile) are only used as distractors
+                packs.add(toRoundPack(listOfVidsAndComments, chosen, videoStats, dealer));
+            }
+        }
+        if (packs.isEmpty()) {
+            throw new IllegalStateException("No statistics found for the harvested videos");
+        }
+        var deck = dealer.deck(packs);
+        List<RoundPack> shuffled = new ArrayList<>(packs.size());
+        while (deck.remaining() > 0) {
+            shuffled.add(deck.next());
+        }
+        return shuffled;
+    }
+
+    //the same harvest is dealt the same way if the dealer is seeded
+    private static String harvestKey(List<Pair<VideoList.Item, List<Comment>>> listOfVidsAndComments) {
+        StringBuilder key = new StringBuilder();
+        for (var p : listOfVidsAndComments) {
+            key.append(p.getFirst().id.videoId).append(',');
+        }
+        return key.toString();
+    }
+
+    private static RoundPack toRoundPack(//long and messy function :(
+            List<Pair<VideoList.Item, List<Comment>>> listOfVidsAndComments, int chosenIndex,
+            VideoStatsCache.Stats stats, HandDealer dealer) {
+        Pair<VideoList.Item, List<Comment>> theChosen = listOfVidsAndComments.get(chosenIndex);
+        List<List<Comment>> otherComments = new ArrayList<>();
+        for (int i = 0; i < listOfVidsAndComments.size(); i++) {
+            if (i != chosenIndex) {
+                otherComments.add(listOfVidsAndComments.get(i).getSecond());
+            }
+        }
+        //theChosen and theRest is now defined. The decks deal without changing the lists, the other packs of this
+        //harvest use them too
+        var chosenComments = dealer.deck(theChosen.getSecond());
+        var theRest = dealer.deck(HandDealer.concat(otherComments));
         //now lets create the videoData
         var video = theChosen.getFirst();
-        var chosenComments = theChosen.getSecond();
 
-        var jsonStringVidInfo = APICaller.getVideoInfoByVideoId(video.id.videoId);
-        var videoInfoList = fromJsonVideoInfoList(jsonStringVidInfo);
-
-        var statistics = videoInfoList.items.get(0).statistics;
-        var contentDetails = videoInfoList.items.get(0).contentDetails;
-        VideoData videoData = new VideoData(statistics.viewCount, statistics.likeCount, video.snippet.title,
-                video.snippet.thumbnails.medium.url, video.snippet.publishedAt,
-                java.time.Duration.parse(contentDetails.duration));
+        VideoData videoData = new VideoData(stats.views, stats.likes, video.snippet.title,
+                video.snippet.thumbnails.medium.url, video.snippet.publishedAt, stats.duration);
 
         //now lets create the 6 player hands
         List<Hand> hands = new ArrayList<>();
-        theRest.get(0).toComment();
         for (int i = 0; i < 7; i++) { //seven hands with each six comments
             var hand = new HandCreator();
             for (int n = i; n < 6; n++) {//selecting correct comments
-                CommentList.Item c = chosenComments.get(rand.nextInt(chosenComments.size()));
-                chosenComments.remove(c); //removing the comments from the list so no two player have the same comments
-                hand.addComment(c.toComment(), Correctness.CORRECT);
+                hand.addComment(chosenComments.next(), Correctness.CORRECT); //no two player get the same comments
             }
             for (int n = i; n > 0; n--) {//selecting wrong comments
-                CommentList.Item c = theRest.get(rand.nextInt(theRest.size()));
-                theRest.remove(c); //removing the comments from the list so no two player have the same comments
-                hand.addComment(c.toComment(), Correctness.WRONG);
+                hand.addComment(theRest.next(), Correctness.WRONG);
             }
             hands.add(new Hand(hand.getComments())); //creating the immutable Hand object from the Hand creator
         }
 
-        return Pair.of(videoData, hands);
-    }
-
-    
-
-    //takes a list of videos filters to videos with comment and fetches 100 most relevant comments filters them to be longer than 50 chars.
-    private static List<Pair<VideoList.Item, List<CommentList.Item>>> collectCommentsFromVideoList(VideoList videoList) {
-        List<Pair<VideoList.Item, List<CommentList.Item>>> videosWithComments = new ArrayList<>();
-        final int MINCHARS = 40;
-
-        for (VideoList.Item video : videoList.items) {
-
-            CommentList commentList;
-            try {
-                String json = APICaller.getCommentsByVideoId(video.id.videoId);
-                commentList = fromJsonToCommentList(json);
-                commentList = filterCommentByLength(commentList, MINCHARS);
-
-                if (commentList.items.size() < 21) {
-                    throw new Exception("Not enough (21 or more) comments longer than " + MINCHARS + " chars.");
-                } else {
-                    System.out.println("Successfully added video Comments");
-                }
-                Pair<VideoList.Item, List<CommentList.Item>> vac = Pair.of(video, commentList.items);
-                videosWithComments.add(vac);
-            } catch (Exception e) {
-                System.out.println("Problem in fetching comments: " + e);
-            }
-        }
-
-        if (videosWithComments.size() < 2) {
-            throw new IllegalStateException(
-                    "The Provided Playlist contains not enough comments longer than " + MINCHARS + " Chars. There must be at least 2 videos with more than 21 fitting comments. " + (videosWithComments.size() == 1 ? "One video" : videosWithComments.size() + " videos") +" fulfill this condition.");
-        }
-
-        return videosWithComments;
-    }
-
-    private static CommentList filterCommentByLength(CommentList cl, int minimumChars) {
-        var listOfCommentItems = new ArrayList<CommentList.Item>(cl.items); // shallow copy
-        for (CommentList.Item i : cl.items) {
-            if (i.snippet.topLevelComment.snippet.textDisplay.length() < minimumChars) {
-                listOfCommentItems.remove(i);
-            }
-        }
-        cl.items = listOfCommentItems;
-        return cl;
+        return new RoundPack(video.id.videoId, videoData, hands);
     }
 
     static String readFile(String path) throws FileNotFoundException, IOException {
@@ -216,29 +311,17 @@ class APIController {
     static VideoList fromJsonToVideoList(String jsonString) {
         // jsonString = jsonString.replace("default", "default_escape");
 
-        Gson gson = new GsonBuilder().setDateFormat(DateFormat.FULL, DateFormat.FULL).create();
-        return gson.fromJson(jsonString, VideoList.class);
+        return GSON.fromJson(jsonString, VideoList.class);
     }
 
     static PlaylistVideoList fromJsonToPlaylistVideoList(String jsonString) {
         jsonString = jsonString.replace("\"default\":", "\"default_escape\":");
 
-        Gson gson = new GsonBuilder().setDateFormat(DateFormat.FULL, DateFormat.FULL).create();
-        return gson.fromJson(jsonString, PlaylistVideoList.class);
-    }
-
-    static CommentList fromJsonToCommentList(String jsonString) {
-        ErrorJson err = new Gson().fromJson(jsonString, ErrorJson.class);
-        if (err.error != null) {
-            throw new IllegalStateException(err.error.message);
-        }
-        Gson gson = new GsonBuilder().setDateFormat(DateFormat.FULL, DateFormat.FULL).create();
-        return gson.fromJson(jsonString, CommentList.class);
+        return GSON.fromJson(jsonString, PlaylistVideoList.class);
     }
 
     static VideoInfoList fromJsonVideoInfoList(String jsonString) {
-        Gson gson = new GsonBuilder().setDateFormat(DateFormat.FULL, DateFormat.FULL).create();
-        return gson.fromJson(jsonString, VideoInfoList.class);
+        return GSON.fromJson(jsonString, VideoInfoList.class);
     }
 }
 
@@ -246,8 +329,6 @@ class Test {
     public static void main(String[] args) throws IllegalStateException, FileNotFoundException, IOException {
         // VideoList videoList = APIController.fromJsonToVideoList(APIController.readFile("src/main/resources/VideoByQueryJson.txt"));
 
-        // CommentList c = APIController.fromJsonToCommentList(APIController.readFile("src/main/resources/CommentsByVideoIdJson.txt"));
-
         // VideoInfoList vil = APIController.fromJsonVideoInfoList(APIController.readFile("src/main/resources/VideoInfoJson.txt"));
     }
 }
@@ -322,7 +403,7 @@ class PlaylistVideoList {
 
     //public String kind;
     //public String etag;
-    //public String nextPageToken;
+    public String nextPageToken;
     //public String regionCode;
     //public PageInfo pageInfo;
     public List<Item> items;
@@ -403,83 +484,6 @@ class PlaylistVideoList {
     }
 }
 
-//Java object which models the Json object received after a YT API CommentThreads call
-class CommentList{
-
-    //public String kind;
-    // public String etag;
-    // public String nextPageToken;
-    public List<Item> items;
-
-    // public PageInfo pageInfo;
-
-    public class PageInfo {
-        public int totalResults;
-        public int resultsPerPage;
-    }
-
-    public class Item {
-        public Comment toComment() {
-            var cl = this;
-            var c = new Comment(cl.id, cl.snippet.videoId, cl.snippet.topLevelComment.snippet.textDisplay, cl.snippet.topLevelComment.snippet.authorDisplayName, 
-            cl.snippet.topLevelComment.snippet.likeCount, cl.snippet.topLevelComment.snippet.publishedAt);
-            return c;
-        }
-
-        // public String kind;
-        // public String etag;
-        public String id;
-        public Snippet snippet;
-
-        class Snippet {
-            public String videoId;
-            public TopLevelComment topLevelComment;
-
-            class TopLevelComment {
-
-                // public String kind;
-                // public String etag;
-                public String id;
-                public Snippet_2 snippet;
-
-                class Snippet_2 {
-                    // public String videoId;
-                    public String textDisplay;
-                    // public String textOriginal;
-                    public String authorDisplayName;
-                    // public String authorProfileImageUrl;
-                    // public String authorChannelUrl;
-                    // public AuthorChannelId authorChannelId;
-
-                    class AuthorChannelId {
-                        public String value;
-                    }
-
-                    // public boolean canRate;
-                    // public String viewerRating;
-                    public int likeCount;
-                    public Date publishedAt;
-                    // public String updatedAt;
-                }
-            }
-
-            // public boolean canReply;
-            // public int totalReplyCount;
-            // public boolean isPublic;
-        }
-    }
-}
-
-class ErrorJson {
-
-    public ErrorBody error;
-
-    class ErrorBody {
-        //public int code;
-        public String message;
-    }
-}
-
 class VideoInfoList {
     
     //public String kind;
@@ -503,8 +507,8 @@ class VideoInfoList {
         }
         public Statistics statistics;
         public class Statistics{
-            public int viewCount;
-            public int likeCount;
+            public long viewCount;
+            public long likeCount;
             //public int favoriteCount;
             //public int commentCount;
         }
@@ -0,0 +1,124 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+//The YT API keys of the server, one per line in the key file. Every call uses the key with the fewest units spent
+//today, so the quota of all keys is used evenly. A key YouTube answers with quotaExceeded is taken out of rotation
+//until the quota resets at midnight Pacific time.
+class ApiKeyPool {
+    static final long DEFAULT_UNITS_PER_KEY = QuotaScheduler.DEFAULT_DAILY_BUDGET;
+
+    private final List<Key> keys;
+    private final long unitsPerKey;
+    private LocalDate quotaDay = LocalDate.now(QuotaScheduler.QUOTA_ZONE); //guarded by this
+
+    ApiKeyPool(List<String> keyValues, long unitsPerKey) {
+        keys = new ArrayList<>();
+        for (String value : keyValues) {
+            if (!value.isBlank()) {
+                keys.add(new Key(value.trim()));
+            }
+        }
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("Something went wrong with the YouTube API key: no key found");
+        }
+        this.unitsPerKey = unitsPerKey;
+    }
+
+    static ApiKeyPool load(Path file) {
+        try {
+            return new ApiKeyPool(Files.readAllLines(file), DEFAULT_UNITS_PER_KEY);
+        } catch (IOException e) {
+            throw new IllegalStateException("Something went wrong with the YouTube API key: " + e);
+        }
+    }
+
+    int size() {
+        return keys.size();
+    }
+
+    //the daily budget of all keys together
+    long getDailyBudget() {
+        return unitsPerKey * keys.size();
+    }
+
+    //picks the key for a call which costs `units` and charges them to it
+    synchronized Key acquire(int units) throws IllegalStateException {
+        resetIfNewDay();
+        long now = System.currentTimeMillis();
+        Key best = null;
+        for (Key k : keys) {
+            if (k.disabledUntil <= now && (best == null || k.usedUnits < best.usedUnits)) {
+                best = k;
+            }
+        }
+        if (best == null) {
+            throw new IllegalStateException("The quota of all YouTube API keys is exceeded for today");
+        }
+        best.usedUnits += units;
+        return best;
+    }
+
+    //takes the key out of rotation until the quota resets, returns the units of this key we had not used yet
+    synchronized long disable(Key key) {
+        key.disabledUntil = nextQuotaReset().toEpochMilli();
+        long unused = Math.max(0, unitsPerKey - key.usedUnits);
+        key.usedUnits = Math.max(key.usedUnits, unitsPerKey);
+        return unused;
+    }
+
+    synchronized int getAvailableCount() {
+        resetIfNewDay();
+        long now = System.currentTimeMillis();
+        int available = 0;
+        for (Key k : keys) {
+            if (k.disabledUntil <= now) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    static boolean isQuotaExceeded(HttpResponse<String> response) {
+        return response.statusCode() == 403 && response.body() != null
+                && (response.body().contains("\"quotaExceeded\"") || response.body().contains("\"dailyLimitExceeded\""));
+    }
+
+    private void resetIfNewDay() {
+        var today = LocalDate.now(QuotaScheduler.QUOTA_ZONE);
+        if (!today.equals(quotaDay)) {
+            quotaDay = today;
+            for (Key k : keys) {
+                k.usedUnits = 0;
+            }
+        }
+    }
+
+    private static Instant nextQuotaReset() {
+        return ZonedDateTime.now(QuotaScheduler.QUOTA_ZONE).toLocalDate().plusDays(1)
+                .atStartOfDay(QuotaScheduler.QUOTA_ZONE).toInstant();
+    }
+
+    static class Key {
+        final String value;
+        private long usedUnits = 0; //guarded by the pool
+        private long disabledUntil = 0; //epoch millis, guarded by the pool
+
+        private Key(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() { //never log the key itself
+            return "Key[..." + value.substring(Math.max(0, value.length() - 4)) + "]";
+        }
+    }
+}
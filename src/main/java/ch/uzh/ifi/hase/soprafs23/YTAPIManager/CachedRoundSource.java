@@ -0,0 +1,54 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.util.List;
+
+//Takes a harvest the RoundPackPool already prepared for the other sources of the game, e.g. only search harvests
+//for a game with CACHE, QUERY. Costs nothing and returns null instead of loading if nothing is ready.
+class CachedRoundSource implements RoundSource {
+    private final List<RoundSourceType> types;
+    private final RoundPackPool pool;
+
+    CachedRoundSource(List<RoundSourceType> types) {
+        this(types, RoundPackPool.getInstance());
+    }
+
+    CachedRoundSource(List<RoundSourceType> types, RoundPackPool pool) {
+        this.types = List.copyOf(types);
+        this.pool = pool;
+    }
+
+    @Override
+    public String getName() {
+        return "cache";
+    }
+
+    @Override
+    public int estimateQuotaCost(HarvestSettings settings) {
+        return 0;
+    }
+
+    @Override
+    public long getExpectedLatencyMillis() {
+        return 1;
+    }
+
+    @Override
+    public boolean followsSettings() {
+        return true;
+    }
+
+    @Override
+    public List<RoundPack> load(HarvestSettings settings) {
+        for (var type : types) {
+            String key = type.getPoolKey(settings);
+            if (key == null) {
+                continue;
+            }
+            var packs = pool.poll(key, settings.language);
+            if (packs != null) {
+                return packs;
+            }
+        }
+        return null;
+    }
+}
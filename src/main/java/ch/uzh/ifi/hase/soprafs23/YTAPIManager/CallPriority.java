@@ -0,0 +1,24 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+//Why a YT API call is made. The QuotaScheduler serves calls in this order and rejects the background classes first
+//when the daily quota runs low. The priority belongs to the thread which makes the call, background pools set it
+//for their tasks, everything else is interactive.
+enum CallPriority {
+    INTERACTIVE, //a player waits for it, e.g. the first round of a game
+    PREFETCH, //the next round of a running game
+    WARMING; //refilling the shared pool, nobody waits for it
+
+    private static final ThreadLocal<CallPriority> CURRENT = ThreadLocal.withInitial(() -> INTERACTIVE);
+
+    static CallPriority current() {
+        return CURRENT.get();
+    }
+
+    static void set(CallPriority priority) {
+        CURRENT.set(priority);
+    }
+
+    static void reset() {
+        CURRENT.remove();
+    }
+}
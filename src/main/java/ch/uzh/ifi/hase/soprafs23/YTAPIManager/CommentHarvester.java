@@ -0,0 +1,118 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.springframework.data.util.Pair;
+
+import ch.uzh.ifi.hase.soprafs23.entity.Comment;
+
+//Fetches the comments of all videos in a video list concurrently. At most `parallelism` requests are open at the
+//same time and each video gets `videoDeadline` to answer, a video that is too slow is skipped like a video
+//without comments. Its request still holds its permit until it is done, so a slow endpoint does not get more than
+//`parallelism` requests. The result keeps the order of the video list, no matter in which order the calls finish.
+class CommentHarvester {
+    static final int DEFAULT_PARALLELISM = 4;
+    static final Duration DEFAULT_VIDEO_DEADLINE = Duration.ofSeconds(5);
+    static final int MINCHARS = 40;
+    static final int MIN_COMMENTS = 21;
+    static final int MIN_VIDEOS = 2;
+
+    private final int parallelism;
+    private final Duration videoDeadline;
+    private final CommentFetcher fetcher;
+
+    //the commentThreads response (JSON) of a video
+    interface CommentFetcher {
+        CompletableFuture<String> fetch(String videoId);
+    }
+
+    CommentHarvester() {
+        this(DEFAULT_PARALLELISM, DEFAULT_VIDEO_DEADLINE);
+    }
+
+    CommentHarvester(int parallelism, Duration videoDeadline) {
+        this(parallelism, videoDeadline, APICaller::getCommentsByVideoIdAsync);
+    }
+
+    CommentHarvester(int parallelism, Duration videoDeadline, CommentFetcher fetcher) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1 (was " + parallelism + ")");
+        }
+        if (videoDeadline == null || videoDeadline.isNegative() || videoDeadline.isZero()) {
+            throw new IllegalArgumentException("The deadline per video must be positive");
+        }
+        this.parallelism = parallelism;
+        this.videoDeadline = videoDeadline;
+        this.fetcher = fetcher;
+    }
+
+    int getParallelism() {
+        return parallelism;
+    }
+
+    Duration getVideoDeadline() {
+        return videoDeadline;
+    }
+
+    //takes a list of videos, fetches the 100 most relevant comments of each video and keeps the videos with at least
+    //MIN_COMMENTS comments longer than MINCHARS chars. Near duplicate comments count only once.
+    List<Pair<VideoList.Item, List<Comment>>> harvest(VideoList videoList) throws InterruptedException {
+        var videosWithComments = harvestQualifying(videoList);
+        requireEnoughVideos(videosWithComments.size());
+        return videosWithComments;
+    }
+
+    //same as harvest, but without requiring a minimal number of qualifying videos
+    List<Pair<VideoList.Item, List<Comment>>> harvestQualifying(VideoList videoList) throws InterruptedException {
+        Semaphore permits = new Semaphore(parallelism);
+        List<CompletableFuture<List<Comment>>> calls = new ArrayList<>();
+
+        for (VideoList.Item video : videoList.items) {
+            permits.acquire();
+            CompletableFuture<String> response;
+            try {
+                response = fetcher.fetch(video.id.videoId);
+            } catch (RuntimeException e) {
+                response = CompletableFuture.failedFuture(e);
+            }
+            response.whenComplete((json, e) -> permits.release()); //once the request is done, not at the deadline
+            calls.add(response.copy() //the deadline only ends the wait of the harvest
+                    .orTimeout(videoDeadline.toMillis(), TimeUnit.MILLISECONDS)
+                    .thenApply(CommentHarvester::toFilteredComments));
+        }
+
+        //collected in list order so the result does not depend on the order the calls complete
+        List<Pair<VideoList.Item, List<Comment>>> videosWithComments = new ArrayList<>();
+        for (int i = 0; i < calls.size(); i++) {
+            try {
+                videosWithComments.add(Pair.of(videoList.items.get(i), calls.get(i).join()));
+                System.out.println("Successfully added video Comments");
+            } catch (CompletionException e) {
+                System.out.println("Problem in fetching comments: " + e.getCause());
+            }
+        }
+
+        return videosWithComments;
+    }
+
+    static void requireEnoughVideos(int qualifyingVideos) throws IllegalStateException {
+        if (qualifyingVideos < MIN_VIDEOS) {
+            throw new IllegalStateException(
+                    "The Provided Playlist contains not enough comments longer than " + MINCHARS + " Chars. There must be at least 2 videos with more than 21 fitting comments. " + (qualifyingVideos == 1 ? "One video" : qualifyingVideos + " videos") +" fulfill this condition.");
+        }
+    }
+
+    private static List<Comment> toFilteredComments(String json) {
+        List<Comment> comments = NearDuplicateFilter.filter(CommentStreamDecoder.decode(json, MINCHARS));
+
+        if (comments.size() < MIN_COMMENTS) {
+            throw new IllegalStateException("Not enough (21 or more) comments longer than " + MINCHARS + " chars.");
+        }
+        return comments;
+    }
+}
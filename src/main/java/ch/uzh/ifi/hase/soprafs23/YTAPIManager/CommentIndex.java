@@ -0,0 +1,410 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.springframework.data.util.Pair;
+
+import ch.uzh.ifi.hase.soprafs23.entity.Comment;
+import ch.uzh.ifi.hase.soprafs23.game.HandDealer;
+
+//Full text index over the titles and comments of all harvested videos. Every video is stored together with its
+//qualifying comments and statistics, so a query the index can answer is turned into rounds without any YT API call.
+//The videos are appended to a log file as they are harvested and the inverted index (term -> videos) is rebuilt
+//from the log at startup. A video harvested again replaces its old entry. When the index holds maxVideos videos,
+//the least recently used one (dealt or harvested) is dropped for a new one. The log is compacted once it holds more
+//replaced or dropped entries than live ones. It is written least recently used first, so after a restart the order
+//of the log stands in for the use (what was dealt since the last compaction is not stored).
+//The videos of a harvest are sampled from several times more matches than needed, so the games of a query do not
+//get the same videos every time.
+class CommentIndex {
+    static final Path DEFAULT_FILE = Paths.get(System.getProperty("yt.index.file", "cache/comment-index.log"));
+    static final int MAX_VIDEOS = 2000;
+    static final int CANDIDATES_PER_VIDEO = 4; //a harvest of n videos is sampled from the best 4n matches
+    static final int MAX_COMMENTS_PER_VIDEO = 42; //enough for the six correct comments of every hand and more
+    static final int TITLE_WEIGHT = 5; //a term in the title counts like this many occurrences in the comments
+    private static final int FILE_VERSION = 1;
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Path file;
+    private final int maxVideos;
+    //guarded by this
+    private final List<Document> documents = new ArrayList<>(); //the position is the id, replaced entries are null
+    private final Map<String, Integer> idByVideo = new LinkedHashMap<>(16, 0.75f, true); //least recently used first
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    private static class Holder { //loaded on first use
+        static final CommentIndex INSTANCE = new CommentIndex(DEFAULT_FILE);
+    }
+
+    CommentIndex(Path file) {
+        this(file, MAX_VIDEOS);
+    }
+
+    CommentIndex(Path file, int maxVideos) {
+        this.file = file;
+        this.maxVideos = maxVideos;
+        load();
+    }
+
+    static CommentIndex getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    //adds the harvested videos which have stats. Called for every harvest, whatever its source
+    void addAll(List<Pair<VideoList.Item, List<Comment>>> videos, Map<String, VideoStatsCache.Stats> stats,
+            Language language) {
+        List<Document> added = new ArrayList<>();
+        synchronized (this) {
+            for (var video : videos) {
+                var s = stats.get(video.getFirst().id.videoId);
+                if (s == null) {
+                    continue;
+                }
+                var document = new Document(video.getFirst(), video.getSecond(), s, language);
+                add(document);
+                added.add(document);
+            }
+            if (!added.isEmpty()) {
+                append(added);
+            }
+        }
+    }
+
+    //whether a harvest of `count` videos for this query can be taken from the index
+    synchronized boolean canAnswer(String query, Language language, int count) {
+        return search(query, language, count).size() >= count;
+    }
+
+    //Up to `count` videos matching the query, picked at random from the best count * CANDIDATES_PER_VIDEO matches.
+    //The picked videos count as used, so they are the last ones to be dropped.
+    synchronized List<Document> sample(String query, Language language, int count) {
+        var dealer = HandDealer.create(query + "|" + language + "|" + count);
+        var candidates = dealer.deck(search(query, language, count * CANDIDATES_PER_VIDEO));
+        List<Document> sample = new ArrayList<>();
+        while (sample.size() < count && candidates.remaining() > 0) {
+            var document = candidates.next();
+            idByVideo.get(document.videoId); //access order
+            sample.add(document);
+        }
+        return sample;
+    }
+
+    //the videos matching every term of the query, best first. Videos of another language are left out.
+    synchronized List<Document> search(String query, Language language, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        int liveCount = idByVideo.size();
+        Map<Integer, double[]> hits = new HashMap<>(); //id -> {matched terms, score}
+        for (String term : terms) {
+            var p = postings.get(term);
+            if (p == null) {
+                return List.of(); //no video contains this term
+            }
+            double idf = Math.log(1 + (double) liveCount / p.size);
+            for (int i = 0; i < p.size; i++) {
+                var hit = hits.computeIfAbsent(p.ids[i], id -> new double[2]);
+                hit[0]++;
+                hit[1] += idf * p.weights[i] / (p.weights[i] + 2.0); //more occurrences count less and less
+            }
+        }
+
+        List<Map.Entry<Integer, double[]>> matches = new ArrayList<>();
+        for (var hit : hits.entrySet()) {
+            var document = documents.get(hit.getKey());
+            if (document != null && hit.getValue()[0] == terms.size()
+                    && (language == null || document.language == null || document.language == language)) {
+                matches.add(hit);
+            }
+        }
+        matches.sort((a, b) -> Double.compare(b.getValue()[1], a.getValue()[1]));
+        List<Document> result = new ArrayList<>();
+        for (int i = 0; i < Math.min(limit, matches.size()); i++) {
+            result.add(documents.get(matches.get(i).getKey()));
+        }
+        return result;
+    }
+
+    synchronized int size() {
+        return idByVideo.size();
+    }
+
+    synchronized boolean contains(String videoId) { //does not count as use
+        return idByVideo.containsKey(videoId);
+    }
+
+    private void add(Document document) {
+        if (!idByVideo.containsKey(document.videoId) && idByVideo.size() >= maxVideos) {
+            var leastRecentlyUsed = idByVideo.entrySet().iterator().next();
+            documents.set(leastRecentlyUsed.getValue(), null); //the postings stay, search skips them
+            idByVideo.remove(leastRecentlyUsed.getKey());
+        }
+        index(document);
+    }
+
+    private void index(Document document) {
+        var old = idByVideo.get(document.videoId);
+        if (old != null) { //the postings of the old entry stay, search skips them
+            documents.set(old, null);
+        }
+        int id = documents.size();
+        documents.add(document);
+        idByVideo.put(document.videoId, id);
+
+        Map<String, Integer> weights = new HashMap<>();
+        for (String term : tokenize(document.title)) {
+            weights.merge(term, TITLE_WEIGHT, Integer::sum);
+        }
+        for (var comment : document.comments) {
+            for (String term : tokenize(comment.content)) {
+                weights.merge(term, 1, Integer::sum);
+            }
+        }
+        for (var w : weights.entrySet()) {
+            postings.computeIfAbsent(w.getKey(), t -> new Postings()).add(id, w.getValue());
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String term : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (term.length() >= 2) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    //disk stuff-------------------------------
+
+    private synchronized void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        boolean damaged = false;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file));
+                DataInputStream data = new DataInputStream(in)) {
+            if (data.readInt() != FILE_VERSION) {
+                System.out.println("The comment index has an unknown version, starting with an empty one");
+                damaged = true;
+            } else {
+                while (true) {
+                    in.mark(1);
+                    if (in.read() < 0) {
+                        break;
+                    }
+                    in.reset();
+                    add(readDocument(data));
+                }
+            }
+        } catch (IOException | RuntimeException e) { //e.g. the last record was cut off by a crash
+            System.out.println("Reading the comment index stopped early: " + e);
+            damaged = true;
+        }
+        if (damaged || documents.size() > 2 * idByVideo.size()) {
+            compact();
+        }
+    }
+
+    private void append(List<Document> added) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            boolean isNew = !Files.exists(file) || Files.size(file) == 0;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND)); DataOutputStream data = new DataOutputStream(out)) {
+                if (isNew) {
+                    data.writeInt(FILE_VERSION);
+                }
+                for (var document : added) {
+                    writeDocument(data, document);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Writing the comment index did not work: " + e);
+        }
+        if (documents.size() > 2 * idByVideo.size()) {
+            compact();
+        }
+    }
+
+    //rewrites the log with the live entries only and renumbers them, least recently used first
+    private void compact() {
+        List<Document> live = new ArrayList<>();
+        for (int id : idByVideo.values()) {
+            live.add(documents.get(id));
+        }
+        documents.clear();
+        idByVideo.clear();
+        postings.clear();
+        for (var document : live) {
+            index(document);
+        }
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "index", ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp));
+                    DataOutputStream data = new DataOutputStream(out)) {
+                data.writeInt(FILE_VERSION);
+                for (var document : live) {
+                    writeDocument(data, document);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Compacting the comment index did not work: " + e);
+        }
+    }
+
+    private static void writeDocument(DataOutputStream data, Document d) throws IOException {
+        writeString(data, d.videoId);
+        writeString(data, d.title);
+        writeString(data, d.thumbnail);
+        data.writeLong(d.publishedAt == null ? Long.MIN_VALUE : d.publishedAt.getTime());
+        writeString(data, d.language == null ? null : d.language.name());
+        data.writeInt(d.stats.views == null ? -1 : d.stats.views);
+        data.writeInt(d.stats.likes == null ? -1 : d.stats.likes);
+        data.writeLong(d.stats.duration == null ? -1 : d.stats.duration.getSeconds());
+        data.writeInt(d.comments.size());
+        for (var c : d.comments) {
+            writeString(data, c.commentId);
+            writeString(data, c.content);
+            writeString(data, c.author);
+            data.writeInt(c.likes == null ? -1 : c.likes);
+            data.writeLong(c.date == null ? Long.MIN_VALUE : c.date.getTime());
+        }
+    }
+
+    private static Document readDocument(DataInputStream data) throws IOException {
+        String videoId = readString(data);
+        String title = readString(data);
+        String thumbnail = readString(data);
+        long publishedAt = data.readLong();
+        String language = readString(data);
+        int views = data.readInt();
+        int likes = data.readInt();
+        long duration = data.readLong();
+        int commentCount = data.readInt();
+        List<Comment> comments = new ArrayList<>(commentCount);
+        for (int i = 0; i < commentCount; i++) {
+            String id = readString(data);
+            String content = readString(data);
+            String author = readString(data);
+            int commentLikes = data.readInt();
+            long date = data.readLong();
+            comments.add(new Comment(id, videoId, content, author, commentLikes < 0 ? null : commentLikes,
+                    date == Long.MIN_VALUE ? null : new Date(date)));
+        }
+        var stats = new VideoStatsCache.Stats(views < 0 ? null : views, likes < 0 ? null : likes,
+                duration < 0 ? null : Duration.ofSeconds(duration));
+        return new Document(videoId, title, thumbnail, publishedAt == Long.MIN_VALUE ? null : new Date(publishedAt),
+                language == null ? null : Language.valueOf(language), stats, comments);
+    }
+
+    //writeUTF is limited to 64KB, comments are not
+    private static void writeString(DataOutputStream data, String s) throws IOException {
+        if (s == null) {
+            data.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //ids and weights of the videos containing a term, ordered by id
+    private static class Postings {
+        int[] ids = new int[4];
+        int[] weights = new int[4];
+        int size = 0;
+
+        void add(int id, int weight) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            ids[size] = id;
+            weights[size] = weight;
+            size++;
+        }
+    }
+
+    static class Document {
+        final String videoId;
+        final String title;
+        final String thumbnail;
+        final Date publishedAt;
+        final Language language; //of the harvest, null if unknown
+        final VideoStatsCache.Stats stats;
+        final List<Comment> comments;
+
+        Document(VideoList.Item video, List<Comment> comments, VideoStatsCache.Stats stats, Language language) {
+            this(video.id.videoId, video.snippet.title, video.snippet.thumbnails.medium.url, video.snippet.publishedAt,
+                    language, stats, List.copyOf(comments.subList(0, Math.min(MAX_COMMENTS_PER_VIDEO, comments.size()))));
+        }
+
+        Document(String videoId, String title, String thumbnail, Date publishedAt, Language language,
+                VideoStatsCache.Stats stats, List<Comment> comments) {
+            this.videoId = videoId;
+            this.title = title;
+            this.thumbnail = thumbnail;
+            this.publishedAt = publishedAt;
+            this.language = language;
+            this.stats = stats;
+            this.comments = comments;
+        }
+
+        //the video and its comments like the CommentHarvester returns them
+        Pair<VideoList.Item, List<Comment>> toHarvested() {
+            var i = new VideoList().new Item();
+            i.id = i.new itemId();
+            i.id.videoId = videoId;
+            var s = i.new Snippet();
+            s.title = title;
+            s.publishedAt = publishedAt;
+            s.thumbnails = s.new Thumbnails();
+            s.thumbnails.medium = s.thumbnails.new Thumbnail();
+            s.thumbnails.medium.url = thumbnail;
+            i.snippet = s;
+            return Pair.of(i, comments);
+        }
+    }
+}
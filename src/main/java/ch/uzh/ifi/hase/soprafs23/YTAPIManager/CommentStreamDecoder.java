@@ -0,0 +1,340 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import ch.uzh.ifi.hase.soprafs23.entity.Comment;
+
+//Decodes a commentThreads response in one pass over the string. Names are compared in place and every value the game
+//does not use is skipped by looking for its end, so no string or object is built for it. Comments shorter than
+//minChars are dropped while reading. An error response is recognized in the same pass. Replaces parsing the response
+//twice with Gson (as ErrorJson and as CommentList) and filtering the CommentList afterwards.
+//Strings are ended with String.indexOf and a text is copied between its escapes in whole runs, not char by char.
+class CommentStreamDecoder {
+    private final String json;
+    private int pos = 0;
+    private int nameStart; //the name read last is json[nameStart, nameEnd)
+    private int nameEnd;
+
+    private CommentStreamDecoder(String json) {
+        this.json = json;
+    }
+
+    static List<Comment> decode(String json, int minChars) throws IllegalStateException {
+        try {
+            return new CommentStreamDecoder(json).readResponse(minChars);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalStateException("The comment response could not be decoded: it ends too early", e);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalStateException("The comment response could not be decoded: " + e.getMessage(), e);
+        }
+    }
+
+    private List<Comment> readResponse(int minChars) {
+        List<Comment> comments = new ArrayList<>();
+        expect('{');
+        while (hasNext('}')) {
+            readName();
+            if (nameIs("error")) {
+                throw new IllegalStateException(readErrorMessage());
+            } else if (nameIs("items")) {
+                expect('[');
+                while (hasNext(']')) {
+                    Comment c = readItem(minChars);
+                    if (c != null) {
+                        comments.add(c);
+                    }
+                }
+            } else {
+                skipValue();
+            }
+        }
+        return comments;
+    }
+
+    private String readErrorMessage() {
+        String message = null;
+        expect('{');
+        while (hasNext('}')) {
+            readName();
+            if (nameIs("message")) {
+                message = readString();
+            } else {
+                skipValue();
+            }
+        }
+        return message;
+    }
+
+    //one commentThread, returns null if the comment is too short
+    private Comment readItem(int minChars) {
+        String id = null;
+        String videoId = null;
+        String text = null;
+        String author = null;
+        int likes = 0;
+        Date date = null;
+
+        expect('{');
+        while (hasNext('}')) {
+            readName();
+            if (nameIs("id")) {
+                id = readString();
+            } else if (nameIs("snippet")) {
+                expect('{');
+                while (hasNext('}')) {
+                    readName();
+                    if (nameIs("videoId")) {
+                        videoId = readString();
+                    } else if (nameIs("topLevelComment")) {
+                        expect('{');
+                        while (hasNext('}')) {
+                            readName();
+                            if (!nameIs("snippet")) {
+                                skipValue();
+                                continue;
+                            }
+                            expect('{');
+                            while (hasNext('}')) {
+                                readName();
+                                if (nameIs("textDisplay")) {
+                                    text = readString();
+                                } else if (nameIs("authorDisplayName")) {
+                                    author = readString();
+                                } else if (nameIs("likeCount")) {
+                                    likes = readInt();
+                                } else if (nameIs("publishedAt")) {
+                                    date = readDate();
+                                } else {
+                                    skipValue();
+                                }
+                            }
+                        }
+                    } else {
+                        skipValue();
+                    }
+                }
+            } else {
+                skipValue();
+            }
+        }
+
+        if (text == null || text.length() < minChars) {
+            return null;
+        }
+        return new Comment(id, videoId, text, author, likes, date);
+    }
+
+    //structure-------------------------------
+
+    //true if the object or array has another member, else the closing `end` is consumed. Skips the comma before it.
+    private boolean hasNext(char end) {
+        skipWhitespace();
+        char c = json.charAt(pos);
+        if (c == ',') {
+            pos++;
+            skipWhitespace();
+            c = json.charAt(pos);
+        }
+        if (c == end) {
+            pos++;
+            return false;
+        }
+        return true;
+    }
+
+    private void readName() {
+        skipWhitespace();
+        expect('"');
+        nameStart = pos;
+        skipStringRest();
+        nameEnd = pos - 1;
+        expect(':');
+    }
+
+    private boolean nameIs(String name) { //names with escapes never match, they are not used by the game
+        return nameEnd - nameStart == name.length() && json.startsWith(name, nameStart);
+    }
+
+    private void expect(char c) {
+        skipWhitespace();
+        if (json.charAt(pos) != c) {
+            throw new IllegalArgumentException("expected '" + c + "' at " + pos + " but found '" + json.charAt(pos) + "'");
+        }
+        pos++;
+    }
+
+    private void skipWhitespace() {
+        char c;
+        while ((c = json.charAt(pos)) == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            pos++;
+        }
+    }
+
+    //values-------------------------------
+
+    private void skipValue() {
+        skipWhitespace();
+        char c = json.charAt(pos);
+        if (c == '"') {
+            pos++;
+            skipStringRest();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = json.charAt(pos++);
+                if (c == '"') {
+                    skipStringRest();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+        } else { //a number, true, false or null
+            while ((c = json.charAt(pos)) != ',' && c != '}' && c != ']' && c != ' ' && c != '\n' && c != '\r'
+                    && c != '\t') {
+                pos++;
+            }
+        }
+    }
+
+    //moves behind the closing quote of the string which starts at pos
+    private void skipStringRest() {
+        while (true) {
+            int quote = json.indexOf('"', pos);
+            if (quote < 0) {
+                throw new IllegalArgumentException("unterminated string at " + pos);
+            }
+            int backslashes = 0;
+            while (json.charAt(quote - 1 - backslashes) == '\\') {
+                backslashes++;
+            }
+            pos = quote + 1;
+            if (backslashes % 2 == 0) { //else the quote is escaped
+                return;
+            }
+        }
+    }
+
+    private String readString() {
+        skipWhitespace();
+        if (json.startsWith("null", pos)) {
+            pos += 4;
+            return null;
+        }
+        expect('"');
+        int start = pos;
+        skipStringRest();
+        int end = pos - 1;
+        int escape = indexOfEscape(start, end);
+        if (escape < 0) {
+            return json.substring(start, end);
+        }
+        StringBuilder s = new StringBuilder(end - start);
+        int i = start;
+        while (escape >= 0) { //copies the runs between escapes in one piece
+            s.append(json, i, escape);
+            char c = json.charAt(escape + 1);
+            i = escape + 2;
+            switch (c) {
+                case 'n':
+                    s.append('\n');
+                    break;
+                case 'r':
+                    s.append('\r');
+                    break;
+                case 't':
+                    s.append('\t');
+                    break;
+                case 'b':
+                    s.append('\b');
+                    break;
+                case 'f':
+                    s.append('\f');
+                    break;
+                case 'u':
+                    s.append((char) Integer.parseInt(json, i, i + 4, 16));
+                    i += 4;
+                    break;
+                default: //" \ /
+                    s.append(c);
+            }
+            escape = indexOfEscape(i, end);
+        }
+        s.append(json, i, end);
+        return s.toString();
+    }
+
+    //json.indexOf('\\', from) would look beyond the string, up to the next escape in the response
+    private int indexOfEscape(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (json.charAt(i) == '\\') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int readInt() {
+        skipWhitespace();
+        if (json.startsWith("null", pos)) {
+            pos += 4;
+            return 0;
+        }
+        boolean negative = json.charAt(pos) == '-';
+        if (negative) {
+            pos++;
+        }
+        int start = pos;
+        long value = 0;
+        char c;
+        while ((c = json.charAt(pos)) >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("number too large at " + start);
+            }
+            pos++;
+        }
+        if (pos == start) {
+            throw new IllegalArgumentException("expected a number at " + start);
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    //YouTube writes dates as 2023-04-18T12:34:56Z, which is read without parsing a string. Anything else goes through
+    //OffsetDateTime.
+    private Date readDate() {
+        skipWhitespace();
+        if (json.startsWith("null", pos)) {
+            pos += 4;
+            return null;
+        }
+        int s = pos + 1;
+        if (json.length() > s + 20 && json.charAt(s - 1) == '"' && json.charAt(s + 4) == '-'
+                && json.charAt(s + 7) == '-' && json.charAt(s + 10) == 'T' && json.charAt(s + 13) == ':'
+                && json.charAt(s + 16) == ':' && json.charAt(s + 19) == 'Z' && json.charAt(s + 20) == '"') {
+            long days = LocalDate.of(digits(s, 4), digits(s + 5, 2), digits(s + 8, 2)).toEpochDay();
+            long seconds = days * 86400 + digits(s + 11, 2) * 3600 + digits(s + 14, 2) * 60 + digits(s + 17, 2);
+            pos = s + 21;
+            return new Date(seconds * 1000);
+        }
+        return Date.from(OffsetDateTime.parse(readString()).toInstant());
+    }
+
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = json.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("expected a digit at " + i);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
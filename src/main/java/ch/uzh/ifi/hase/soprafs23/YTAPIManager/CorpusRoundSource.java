@@ -0,0 +1,79 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+//Offline rounds drawn from the round pack corpus (see RoundPackCorpusBuilder). Without a corpus every round is the
+//one of GameData1.txt. Costs no quota, but ignores the playlist and query of the game.
+class CorpusRoundSource implements RoundSource {
+    static final Path CORPUS_FILE = Paths.get(System.getProperty("yt.corpus.file", "corpus/roundpacks.ytrp"));
+    static final String GAME_DATA_FILE = "src/main/resources/GameData1.txt";
+    static final CorpusRoundSource INSTANCE = new CorpusRoundSource(CORPUS_FILE, GAME_DATA_FILE);
+
+    private final Path corpusFile;
+    private final String gameDataFile;
+    //guarded by this
+    private boolean opened = false;
+    private RoundPackCorpus.Deck deck;
+    private RoundPack gameData;
+
+    CorpusRoundSource(Path corpusFile, String gameDataFile) {
+        this.corpusFile = corpusFile;
+        this.gameDataFile = gameDataFile;
+    }
+
+    @Override
+    public String getName() {
+        return "corpus";
+    }
+
+    @Override
+    public int estimateQuotaCost(HarvestSettings settings) {
+        return 0;
+    }
+
+    @Override
+    public long getExpectedLatencyMillis() {
+        return 5;
+    }
+
+    @Override
+    public boolean followsSettings() {
+        return false;
+    }
+
+    @Override
+    public synchronized List<RoundPack> load(HarvestSettings settings) throws IOException {
+        if (!opened) {
+            opened = true;
+            if (Files.exists(corpusFile)) {
+                try {
+                    deck = RoundPackCorpus.open(corpusFile).newDeck();
+                } catch (IOException | RuntimeException e) {
+                    System.out.println("The round pack corpus could not be opened, using " + gameDataFile + ": " + e);
+                }
+            }
+        }
+        if (deck == null) {
+            if (gameData == null) { //reading the file is slow, it is only read once
+                gameData = RoundPackCorpusBuilder.readGameDataFile(gameDataFile);
+            }
+            return List.of(gameData);
+        }
+        List<RoundPack> packs = new ArrayList<>();
+        Set<String> videoIds = new HashSet<>();
+        for (int i = 0; i < settings.videosPerHarvest; i++) { //a small corpus may repeat within a harvest
+            var pack = deck.draw();
+            if (videoIds.add(pack.videoId)) {
+                packs.add(pack);
+            }
+        }
+        return packs;
+    }
+}
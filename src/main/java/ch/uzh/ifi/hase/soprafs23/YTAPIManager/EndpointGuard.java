@@ -0,0 +1,255 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Resilience around the calls to one endpoint of the YT API:
+// - every attempt has the timeout of the endpoint
+// - failed attempts (IO errors, timeouts, 5xx) are retried with a jittered exponential backoff
+// - if an attempt takes longer than the p95 latency of the endpoint, a second (hedged) attempt is started and the
+//   first answer which is not a 5xx wins. Only endpoints which cost 1 unit are hedged, a hedged search would cost
+//   another 100. The latency counts from the moment the request is sent, the wait for quota is not part of it.
+// - a circuit breaker opens after FAILURES_TO_OPEN failed calls in a row. While it is open, calls fail immediately.
+//   After OPEN_DURATION one trial call is let through, and its result closes or reopens the circuit.
+//   Only IO errors, timeouts and 5xx count as failures. A call the QuotaScheduler rejected (IllegalStateException)
+//   says nothing about YouTube, so it neither opens nor closes the circuit.
+class EndpointGuard {
+    static final int FAILURES_TO_OPEN = 5;
+    static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+    static final int MAX_RETRIES = 2;
+    static final Duration RETRY_BASE_DELAY = Duration.ofMillis(200);
+    static final int LATENCY_SAMPLES = 100;
+    static final int MIN_SAMPLES_FOR_HEDGE = 20;
+
+    private static final Map<QuotaScheduler.Endpoint, EndpointGuard> GUARDS = new EnumMap<>(
+            QuotaScheduler.Endpoint.class);
+
+    static {
+        for (var endpoint : QuotaScheduler.Endpoint.values()) {
+            GUARDS.put(endpoint, new EndpointGuard(endpoint));
+        }
+    }
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final QuotaScheduler.Endpoint endpoint;
+    private final long[] latencies = new long[LATENCY_SAMPLES]; //ring buffer of nanos, guarded by itself
+    private int latencyCount = 0;
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    //circuit breaker, guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+    private boolean trialRunning = false;
+
+    EndpointGuard(QuotaScheduler.Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    static EndpointGuard forEndpoint(QuotaScheduler.Endpoint endpoint) {
+        return GUARDS.get(endpoint);
+    }
+
+    //one attempt of a call. It runs `sending` right before the request goes out, after waiting for quota
+    interface Attempt {
+        CompletableFuture<HttpResponse<String>> start(Runnable sending);
+    }
+
+    static boolean isAnyOpen() {
+        for (var guard : GUARDS.values()) {
+            if (guard.getState() != State.CLOSED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //`attempt` starts one attempt of the call, it is started again for retries and hedges
+    CompletableFuture<HttpResponse<String>> call(Attempt attempt) {
+        if (!allowCall()) {
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "YouTube " + endpoint + " is failing, the circuit is open for " + OPEN_DURATION.getSeconds() + "s"));
+        }
+        //the breaker is updated before the caller sees the result
+        return withRetries(attempt, 0).whenComplete((response, e) -> {
+            if (isFailure(response, e)) {
+                recordFailure();
+            } else if (e == null) {
+                recordSuccess();
+            } else {
+                recordNeither();
+            }
+        });
+    }
+
+    synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= OPEN_DURATION.toNanos()) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    long getHedgeCount() {
+        return hedges.get();
+    }
+
+    long getRetryCount() {
+        return retries.get();
+    }
+
+    //p95 of the recent latencies in nanos, or -1 if there are not enough samples yet
+    long getP95Latency() {
+        synchronized (latencies) {
+            if (latencyCount < MIN_SAMPLES_FOR_HEDGE) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(latencies, Math.min(latencyCount, LATENCY_SAMPLES));
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(sorted.length * 0.95) - 1];
+        }
+    }
+
+    //retries-------------------------------
+
+    private CompletableFuture<HttpResponse<String>> withRetries(Attempt attempt, int retry) {
+        return hedged(attempt).handle((response, e) -> {
+            if (!isFailure(response, e) || retry >= MAX_RETRIES) {
+                return e != null ? CompletableFuture.<HttpResponse<String>>failedFuture(unwrap(e))
+                        : CompletableFuture.completedFuture(response);
+            }
+            retries.incrementAndGet();
+            //full jitter: a random delay up to base * 2^retry, so the retries of many calls do not come at once
+            long maxDelay = RETRY_BASE_DELAY.toMillis() << retry;
+            long delay = ThreadLocalRandom.current().nextLong(maxDelay + 1);
+            return CompletableFuture.supplyAsync(() -> null,
+                    CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> withRetries(attempt, retry + 1));
+        }).thenCompose(f -> f);
+    }
+
+    //hedging-------------------------------
+
+    private CompletableFuture<HttpResponse<String>> hedged(Attempt attempt) {
+        long p95 = endpoint.cost == 1 ? getP95Latency() : -1;
+        var result = new CompletableFuture<HttpResponse<String>>();
+        var running = new AtomicInteger(1);
+        start(attempt, result, running, () -> { //the hedge waits for the p95 once the first request is sent
+            if (p95 > 0) {
+                CompletableFuture.delayedExecutor(p95, TimeUnit.NANOSECONDS).execute(() -> {
+                    if (!result.isDone()) {
+                        hedges.incrementAndGet();
+                        running.incrementAndGet();
+                        start(attempt, result, running, null);
+                    }
+                });
+            }
+        });
+        return result;
+    }
+
+    //the first successful attempt completes the result, a failure or 5xx only if no other attempt is still running
+    private void start(Attempt attempt, CompletableFuture<HttpResponse<String>> result, AtomicInteger running,
+            Runnable onSending) {
+        var sentAt = new AtomicLong(System.nanoTime());
+        CompletableFuture<HttpResponse<String>> f;
+        try {
+            f = attempt.start(() -> {
+                sentAt.set(System.nanoTime());
+                if (onSending != null) {
+                    onSending.run();
+                }
+            });
+        } catch (RuntimeException e) {
+            f = CompletableFuture.failedFuture(e);
+        }
+        f.whenComplete((response, e) -> {
+            int stillRunning = running.decrementAndGet();
+            if (e == null && response.statusCode() < 500) {
+                recordLatency(System.nanoTime() - sentAt.get());
+                result.complete(response);
+            } else if (stillRunning == 0) {
+                if (e != null) {
+                    result.completeExceptionally(unwrap(e));
+                } else {
+                    result.complete(response);
+                }
+            }
+        });
+    }
+
+    private void recordLatency(long nanos) {
+        synchronized (latencies) {
+            latencies[latencyCount % LATENCY_SAMPLES] = nanos;
+            latencyCount++;
+        }
+    }
+
+    //circuit breaker-------------------------------
+
+    private synchronized boolean allowCall() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.nanoTime() - openedAt >= OPEN_DURATION.toNanos()) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN && !trialRunning) {
+            trialRunning = true; //exactly one trial call
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        trialRunning = false;
+        if (state != State.CLOSED) {
+            System.out.println("YouTube " + endpoint + " works again, closing the circuit");
+        }
+        state = State.CLOSED;
+    }
+
+    private synchronized void recordNeither() { //e.g. rejected for quota, a trial call has to be tried again
+        trialRunning = false;
+    }
+
+    private synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= FAILURES_TO_OPEN) {
+            if (state != State.OPEN) {
+                System.out.println("YouTube " + endpoint + " is failing, opening the circuit");
+            }
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+        trialRunning = false;
+    }
+
+    //IO errors, timeouts and 5xx, only these are retried and count for the circuit breaker
+    private static boolean isFailure(HttpResponse<String> response, Throwable e) {
+        if (e == null) {
+            return response.statusCode() >= 500;
+        }
+        Throwable cause = unwrap(e);
+        return cause instanceof IOException || cause instanceof TimeoutException;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
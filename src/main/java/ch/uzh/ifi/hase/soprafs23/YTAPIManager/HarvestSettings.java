@@ -0,0 +1,41 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+//The settings of a game a round source needs, taken together so a harvest does not mix settings from before and
+//after a change.
+class HarvestSettings {
+    final String playlistId;
+    final String query;
+    final Language language;
+    final CommentHarvester harvester;
+    final int videosPerHarvest;
+
+    HarvestSettings(String playlistId, String query, Language language, CommentHarvester harvester,
+            int videosPerHarvest) {
+        this.playlistId = playlistId;
+        this.query = query;
+        this.language = language;
+        this.harvester = harvester;
+        this.videosPerHarvest = videosPerHarvest;
+    }
+
+    //keys of the harvests in the RoundPackPool. A playlistId never contains ':'. The pool refills a key with the
+    //loader of the game which created it, so the key also holds the harvest size and the harvester settings
+    String playlistKey() {
+        return playlistId + loaderSuffix();
+    }
+
+    String searchKey() {
+        return "search:" + query + loaderSuffix();
+    }
+
+    String relatedKey() {
+        return "related:" + query + loaderSuffix();
+    }
+
+    private String loaderSuffix() {
+        if (harvester == null) {
+            return "|" + videosPerHarvest;
+        }
+        return "|" + videosPerHarvest + "|" + harvester.getParallelism() + "|" + harvester.getVideoDeadline().toMillis();
+    }
+}
@@ -0,0 +1,171 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ch.uzh.ifi.hase.soprafs23.entity.Comment;
+
+//Drops comments which are (nearly) a copy of a comment before them, so two players never get the same text and a
+//wrong comment is never practically the correct one. Every comment gets a MinHash signature over the character
+//shingles of its normalized text. The signature is cut into bands and only comments sharing a band are compared,
+//so a video costs linear time instead of comparing every pair. Comparing means estimating the Jaccard similarity
+//from the signatures; from SIMILARITY on the later comment is dropped (the first one is the more relevant one).
+class NearDuplicateFilter {
+    static final int SHINGLE_LENGTH = 5;
+    static final int BANDS = 8;
+    static final int ROWS = 4; //with 8 bands of 4 rows 98.5% of the pairs with a similarity of 0.8 share a band
+    static final double SIMILARITY = 0.8;
+    private static final int BIN_BITS = 5;
+    private static final int BINS = 1 << BIN_BITS; //= BANDS * ROWS
+    private static final int VALUE_MASK = -1 >>> BIN_BITS;
+    private static final int WINDOW_POWER = 31 * 31 * 31 * 31 * 31; //31^SHINGLE_LENGTH
+
+    private NearDuplicateFilter() {
+    }
+
+    //the comments without near duplicates, in the same order
+    static List<Comment> filter(List<Comment> comments) {
+        List<Comment> kept = new ArrayList<>(comments.size());
+        List<int[]> keptSignatures = new ArrayList<>(comments.size());
+        List<Map<Long, List<Integer>>> buckets = new ArrayList<>(BANDS); //band value -> indices into kept
+        for (int b = 0; b < BANDS; b++) {
+            buckets.add(new HashMap<>());
+        }
+
+        for (var comment : comments) {
+            int[] signature = signature(comment.content);
+            long[] bandKeys = new long[BANDS];
+            boolean duplicate = false;
+            for (int b = 0; b < BANDS && !duplicate; b++) {
+                bandKeys[b] = bandKey(signature, b);
+                var candidates = buckets.get(b).get(bandKeys[b]);
+                if (candidates != null) {
+                    for (int candidate : candidates) {
+                        if (similarity(signature, keptSignatures.get(candidate)) >= SIMILARITY) {
+                            duplicate = true;
+                            break;
+                        }
+                    }
+                }
+            }
+            if (duplicate) {
+                continue;
+            }
+            int index = kept.size();
+            kept.add(comment);
+            keptSignatures.add(signature);
+            for (int b = 0; b < BANDS; b++) {
+                buckets.get(b).computeIfAbsent(bandKeys[b], k -> new ArrayList<>(1)).add(index);
+            }
+        }
+        return kept;
+    }
+
+    //estimated Jaccard similarity of the shingle sets: the share of equal minima
+    static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < BINS; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / BINS;
+    }
+
+    //One permutation MinHash: every shingle is hashed once, the top bits of the hash choose one of the BINS and the
+    //bin keeps the smallest rest. Empty bins (short comments) take the value of the next filled bin, marked with the
+    //distance, so two texts still only agree in a bin if they share the minimum it was taken from.
+    static int[] signature(String text) {
+        int[] signature = new int[BINS];
+        int filled = 0; //bit i is set once bin i got a value
+        int window = 0; //polynomial hash of the last SHINGLE_LENGTH normalized chars
+        char[] last = new char[SHINGLE_LENGTH];
+        int count = 0; //normalized chars so far
+        boolean inTag = false;
+        boolean space = true; //no leading space, and runs of other chars become one space
+
+        for (int i = 0; i <= text.length(); i++) {
+            char c;
+            if (i == text.length()) {
+                if (count >= SHINGLE_LENGTH) {
+                    break;
+                }
+                c = ' '; //a text shorter than a shingle is one shingle
+            } else {
+                c = text.charAt(i);
+                if (c == '<') { //html like <br> and <a href=...>
+                    inTag = true;
+                    continue;
+                } else if (inTag) {
+                    inTag = c != '>';
+                    if (inTag) {
+                        continue;
+                    }
+                }
+                if (Character.isLetterOrDigit(c)) {
+                    c = Character.toLowerCase(c);
+                    space = false;
+                } else if (space) {
+                    continue;
+                } else {
+                    c = ' ';
+                    space = true;
+                }
+            }
+            window = window * 31 + c;
+            if (count >= SHINGLE_LENGTH) {
+                window -= last[count % SHINGLE_LENGTH] * WINDOW_POWER;
+            }
+            last[count % SHINGLE_LENGTH] = c;
+            count++;
+            if (count < SHINGLE_LENGTH && i < text.length()) {
+                continue;
+            }
+
+            int hash = mix(window);
+            int bin = hash >>> (32 - BIN_BITS);
+            int value = hash & VALUE_MASK;
+            if ((filled & (1 << bin)) == 0 || value < signature[bin]) {
+                signature[bin] = value;
+                filled |= 1 << bin;
+            }
+        }
+
+        if (filled != -1) { //densify
+            if (filled == 0) {
+                return signature; //cannot happen, every text has at least one shingle
+            }
+            int[] dense = signature.clone();
+            for (int bin = 0; bin < BINS; bin++) {
+                if ((filled & (1 << bin)) == 0) {
+                    int distance = 1;
+                    while ((filled & (1 << ((bin + distance) % BINS))) == 0) {
+                        distance++;
+                    }
+                    dense[bin] = signature[(bin + distance) % BINS] | (distance << (32 - BIN_BITS));
+                }
+            }
+            return dense;
+        }
+        return signature;
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int r = band * ROWS; r < (band + 1) * ROWS; r++) {
+            key = key * 0x9E3779B97F4A7C15L + signature[r];
+        }
+        return key;
+    }
+
+    private static int mix(int x) { //spreads similar shingles over the whole range (murmur3 finalizer)
+        x ^= x >>> 16;
+        x *= 0x85ebca6b;
+        x ^= x >>> 13;
+        x *= 0xc2b2ae35;
+        x ^= x >>> 16;
+        return x;
+    }
+}
@@ -0,0 +1,38 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.IOException;
+import java.util.List;
+
+//Rounds from the videos of the playlist, shared with the other games of the playlist through the RoundPackPool
+class PlaylistRoundSource implements RoundSource {
+    static final PlaylistRoundSource INSTANCE = new PlaylistRoundSource();
+
+    private PlaylistRoundSource() {
+    }
+
+    @Override
+    public String getName() {
+        return "playlist";
+    }
+
+    @Override
+    public int estimateQuotaCost(HarvestSettings settings) { //a page or two, the comments and one videos call
+        return 2 + settings.videosPerHarvest + 1;
+    }
+
+    @Override
+    public long getExpectedLatencyMillis() {
+        return 2000;
+    }
+
+    @Override
+    public boolean followsSettings() {
+        return true;
+    }
+
+    @Override
+    public List<RoundPack> load(HarvestSettings s) throws IOException, InterruptedException {
+        return RoundPackPool.getInstance().take(s.playlistKey(), s.language,
+                () -> APIController.getRoundPacksByPlaylist(s.playlistId, s.language, s.harvester, s.videosPerHarvest));
+    }
+}
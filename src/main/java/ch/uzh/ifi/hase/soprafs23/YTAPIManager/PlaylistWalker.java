@@ -0,0 +1,85 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.data.util.Pair;
+
+import ch.uzh.ifi.hase.soprafs23.entity.Comment;
+
+//Reads a playlist page by page (nextPageToken) and harvests the comments of every page until enough qualifying videos
+//are found. The walker remembers where it stopped, so the next harvest of the same playlist continues deeper in the
+//playlist instead of reading the first page again. After the last page it starts over at the first one.
+class PlaylistWalker {
+    private static final int MAX_PLAYLISTS = RoundPackPool.DEFAULT_MAX_KEYS;
+
+    private static final Map<String, PlaylistWalker> WALKERS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PlaylistWalker> eldest) {
+            return size() > MAX_PLAYLISTS;
+        }
+    };
+
+    private final String playlistId;
+    private final PageFetcher pages;
+    private String pageToken = null; //token of the next page to read, null is the first page
+
+    //the playlistItems response (JSON) of one page, pageToken is null for the first page
+    interface PageFetcher {
+        String fetch(String playlistId, String pageToken) throws IOException, InterruptedException;
+    }
+
+    //the qualifying videos of one page with their comments
+    interface PageHarvester {
+        List<Pair<VideoList.Item, List<Comment>>> harvest(VideoList page) throws InterruptedException;
+    }
+
+    PlaylistWalker(String playlistId) {
+        this(playlistId, APICaller::getVideosByPlaylistId);
+    }
+
+    PlaylistWalker(String playlistId, PageFetcher pages) {
+        this.playlistId = playlistId;
+        this.pages = pages;
+    }
+
+    static PlaylistWalker forPlaylist(String playlistId) {
+        synchronized (WALKERS) {
+            return WALKERS.computeIfAbsent(playlistId, PlaylistWalker::new);
+        }
+    }
+
+    List<Pair<VideoList.Item, List<Comment>>> next(CommentHarvester harvester, int targetVideos)
+            throws IOException, InterruptedException {
+        return next(harvester::harvestQualifying, targetVideos);
+    }
+
+    //harvests the following pages until at least targetVideos qualifying videos are found or the whole playlist was
+    //read once. Calls of the same walker run one after the other, so they never harvest the same page twice.
+    synchronized List<Pair<VideoList.Item, List<Comment>>> next(PageHarvester harvester, int targetVideos)
+            throws IOException, InterruptedException {
+        List<Pair<VideoList.Item, List<Comment>>> videosWithComments = new ArrayList<>();
+        Set<String> pagesRead = new HashSet<>();
+
+        while (videosWithComments.size() < targetVideos) {
+            if (!pagesRead.add(pageToken == null ? "" : pageToken)) {
+                break; //went around the whole playlist
+            }
+            var page = APIController.fromJsonToPlaylistVideoList(pages.fetch(playlistId, pageToken));
+            if (page == null || page.items == null) {
+                throw new IllegalStateException("The provided Playlist is invalid. Probably it is private. It must be public");
+            }
+            pageToken = page.nextPageToken; //null after the last page, so the walk starts over
+            if (!page.items.isEmpty()) {
+                videosWithComments.addAll(harvester.harvest(page.toVideoList()));
+            }
+        }
+
+        CommentHarvester.requireEnoughVideos(videosWithComments.size());
+        return videosWithComments;
+    }
+}
@@ -0,0 +1,42 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.IOException;
+import java.util.List;
+
+//Rounds for the query, from the CommentIndex if it knows enough matching videos and else from the results of a
+//search. The search costs 100 units, but its response is cached for APICaller.SEARCH_TTL.
+class QueryRoundSource implements RoundSource {
+    static final QueryRoundSource INSTANCE = new QueryRoundSource();
+
+    private QueryRoundSource() {
+    }
+
+    @Override
+    public String getName() {
+        return "query";
+    }
+
+    @Override
+    public int estimateQuotaCost(HarvestSettings settings) { //nothing if the CommentIndex can answer the query
+        if (CommentIndex.getInstance().canAnswer(settings.query, settings.language, settings.videosPerHarvest)) {
+            return 0;
+        }
+        return QuotaScheduler.Endpoint.SEARCH.cost + settings.videosPerHarvest + 1;
+    }
+
+    @Override
+    public long getExpectedLatencyMillis() {
+        return 2500;
+    }
+
+    @Override
+    public boolean followsSettings() {
+        return true;
+    }
+
+    @Override
+    public List<RoundPack> load(HarvestSettings s) throws IOException, InterruptedException {
+        return RoundPackPool.getInstance().take(s.searchKey(), s.language,
+                () -> APIController.getRoundPacksByQuery(s.query, s.language, s.harvester, s.videosPerHarvest));
+    }
+}
@@ -0,0 +1,226 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+//Every call to the YT API goes through here. The scheduler keeps track of the quota units spent today (the quota
+//resets at midnight Pacific time) and limits the rate of calls with a token bucket. Waiting calls are started by
+//priority, interactive calls first. When the remaining quota drops below a reserve, background calls are rejected so
+//the rest of the day's quota is left for games which are starting.
+class QuotaScheduler {
+    static final long DEFAULT_DAILY_BUDGET = 10_000; //default quota of a YT API key
+    static final double PREFETCH_RESERVE = 0.10; //prefetching stops when less than 10% of the budget is left
+    static final double WARMING_RESERVE = 0.30; //warming stops when less than 30% is left
+    static final int DEFAULT_BURST = 20;
+    static final double DEFAULT_CALLS_PER_SECOND = 10;
+    static final ZoneId QUOTA_ZONE = ZoneId.of("America/Los_Angeles");
+
+    private static final QuotaScheduler INSTANCE = new QuotaScheduler(DEFAULT_DAILY_BUDGET, DEFAULT_BURST,
+            DEFAULT_CALLS_PER_SECOND);
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            new DaemonThreadFactory("yt-quota"));
+    private final PriorityQueue<Waiting<?>> waiting = new PriorityQueue<>(
+            Comparator.<Waiting<?>>comparingInt(w -> w.priority.ordinal()).thenComparingLong(w -> w.seq));
+    private final AtomicLong rejected = new AtomicLong();
+
+    //guarded by this
+    private long dailyBudget;
+    private long usedUnits = 0;
+    private LocalDate quotaDay = LocalDate.now(QUOTA_ZONE);
+    private final int burst;
+    private final double callsPerSecond;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private long seq = 0;
+    private boolean drainScheduled = false;
+
+    QuotaScheduler(long dailyBudget, int burst, double callsPerSecond) {
+        if (dailyBudget < 0 || burst < 1 || callsPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid quota limits: dailyBudget=" + dailyBudget + " burst=" + burst
+                    + " callsPerSecond=" + callsPerSecond);
+        }
+        this.dailyBudget = dailyBudget;
+        this.burst = burst;
+        this.callsPerSecond = callsPerSecond;
+        this.tokens = burst;
+    }
+
+    static QuotaScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    //Reserves the units of this call and starts it as soon as the rate allows. If the call is not allowed anymore
+    //today the returned future fails with an IllegalStateException and no units are spent.
+    <T> CompletableFuture<T> submit(Endpoint endpoint, CallPriority priority, Supplier<CompletableFuture<T>> call) {
+        Waiting<T> w;
+        synchronized (this) {
+            resetIfNewDay();
+            long remaining = dailyBudget - usedUnits;
+            if (remaining - endpoint.cost < reserveFor(priority)) {
+                rejected.incrementAndGet();
+                return CompletableFuture.failedFuture(new IllegalStateException("The YouTube quota left for today ("
+                        + remaining + " units) is reserved, " + priority + " call to " + endpoint + " rejected"));
+            }
+            usedUnits += endpoint.cost;
+            w = new Waiting<>(priority, seq++, call);
+            waiting.add(w);
+        }
+        drain();
+        return w.result;
+    }
+
+    synchronized void setDailyBudget(long dailyBudget) {
+        if (dailyBudget < 0) {
+            throw new IllegalArgumentException("The daily budget must not be negative (was " + dailyBudget + ")");
+        }
+        this.dailyBudget = dailyBudget;
+    }
+
+    //counts units as spent which we can not use anymore today, e.g. the rest of a key YouTube says is out of quota
+    synchronized void forfeit(long units) {
+        resetIfNewDay();
+        usedUnits = Math.min(dailyBudget, usedUnits + units);
+    }
+
+    synchronized long getDailyBudget() {
+        return dailyBudget;
+    }
+
+    synchronized long getUsedUnits() {
+        resetIfNewDay();
+        return usedUnits;
+    }
+
+    synchronized long getRemainingUnits() {
+        resetIfNewDay();
+        return Math.max(0, dailyBudget - usedUnits);
+    }
+
+    synchronized int getWaitingCount() {
+        return waiting.size();
+    }
+
+    long getRejectedCount() {
+        return rejected.get();
+    }
+
+    //starts waiting calls while there are tokens, and comes back when the next token is due
+    private void drain() {
+        while (true) {
+            Waiting<?> next;
+            synchronized (this) {
+                refillTokens();
+                if (waiting.isEmpty()) {
+                    return;
+                }
+                if (tokens < 1) {
+                    if (!drainScheduled) {
+                        drainScheduled = true;
+                        long delay = (long) Math.ceil((1 - tokens) / callsPerSecond * 1_000_000_000L);
+                        timer.schedule(() -> {
+                            synchronized (this) {
+                                drainScheduled = false;
+                            }
+                            drain();
+                        }, delay, TimeUnit.NANOSECONDS);
+                    }
+                    return;
+                }
+                tokens -= 1;
+                next = waiting.poll();
+            }
+            next.start(); //outside of the lock, starting a call may complete futures
+        }
+    }
+
+    private void refillTokens() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) / 1_000_000_000.0 * callsPerSecond);
+        lastRefill = now;
+    }
+
+    private long reserveFor(CallPriority priority) {
+        switch (priority) {
+            case PREFETCH:
+                return (long) (dailyBudget * PREFETCH_RESERVE);
+            case WARMING:
+                return (long) (dailyBudget * WARMING_RESERVE);
+            default:
+                return 0;
+        }
+    }
+
+    private void resetIfNewDay() {
+        var today = LocalDate.now(QUOTA_ZONE);
+        if (!today.equals(quotaDay)) {
+            quotaDay = today;
+            usedUnits = 0;
+        }
+    }
+
+    //quota cost of the endpoints we use, see https://developers.google.com/youtube/v3/determine_quota_cost
+    enum Endpoint {
+        SEARCH(100, Duration.ofSeconds(8)),
+        PLAYLIST_ITEMS(1, Duration.ofSeconds(5)),
+        COMMENT_THREADS(1, Duration.ofSeconds(5)),
+        VIDEOS(1, Duration.ofSeconds(3));
+
+        final int cost;
+        final Duration timeout; //per attempt
+
+        Endpoint(int cost, Duration timeout) {
+            this.cost = cost;
+            this.timeout = timeout;
+        }
+
+        static Endpoint of(String url) {
+            if (url.contains("/youtube/v3/search?")) {
+                return SEARCH;
+            } else if (url.contains("/youtube/v3/playlistItems?")) {
+                return PLAYLIST_ITEMS;
+            } else if (url.contains("/youtube/v3/commentThreads?")) {
+                return COMMENT_THREADS;
+            } else if (url.contains("/youtube/v3/videos?")) {
+                return VIDEOS;
+            }
+            throw new IllegalArgumentException("Unknown YT API endpoint: " + url);
+        }
+    }
+
+    private static class Waiting<T> {
+        final CallPriority priority;
+        final long seq;
+        final Supplier<CompletableFuture<T>> call;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Waiting(CallPriority priority, long seq, Supplier<CompletableFuture<T>> call) {
+            this.priority = priority;
+            this.seq = seq;
+            this.call = call;
+        }
+
+        void start() {
+            try {
+                call.get().whenComplete((value, e) -> {
+                    if (e != null) {
+                        result.completeExceptionally(e);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
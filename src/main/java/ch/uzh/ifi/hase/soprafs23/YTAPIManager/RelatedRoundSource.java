@@ -0,0 +1,43 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.IOException;
+import java.util.List;
+
+//Rounds from the related video graph around the results of the query. Once the query is known to the graph a
+//harvest usually needs no search call at all.
+class RelatedRoundSource implements RoundSource {
+    static final RelatedRoundSource INSTANCE = new RelatedRoundSource();
+
+    private RelatedRoundSource() {
+    }
+
+    @Override
+    public String getName() {
+        return "related";
+    }
+
+    @Override
+    public int estimateQuotaCost(HarvestSettings settings) { //on average half of the allowed expansions
+        int expansions = APIController.MAX_EXPANSIONS_PER_HARVEST * QuotaScheduler.Endpoint.SEARCH.cost / 2;
+        int search = RelatedVideoGraph.getInstance().isKnownQuery(settings.query, settings.language)
+                ? 0
+                : QuotaScheduler.Endpoint.SEARCH.cost;
+        return search + expansions + 2 * settings.videosPerHarvest + 1;
+    }
+
+    @Override
+    public long getExpectedLatencyMillis() {
+        return 3000;
+    }
+
+    @Override
+    public boolean followsSettings() {
+        return true;
+    }
+
+    @Override
+    public List<RoundPack> load(HarvestSettings s) throws IOException, InterruptedException {
+        return RoundPackPool.getInstance().take(s.relatedKey(), s.language,
+                () -> APIController.getRoundPacksByRelated(s.query, s.language, s.harvester, s.videosPerHarvest));
+    }
+}
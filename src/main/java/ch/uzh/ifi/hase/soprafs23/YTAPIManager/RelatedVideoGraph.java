@@ -0,0 +1,334 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ch.uzh.ifi.hase.soprafs23.game.HandDealer;
+
+//Graph of videos and the videos YouTube lists as related to them. A query is searched only once, its results become
+//the seeds of the query. Rounds are then built from the videos reachable from the seeds: known edges cost nothing,
+//a video is only expanded (one related videos call) when the known part of the graph is too small, and at most
+//`breadth` related videos are kept per video. The graph is saved to disk, so it grows across restarts and a query
+//which was played before costs no search at all.
+class RelatedVideoGraph {
+    static final int DEFAULT_BREADTH = 10;
+    static final int MAX_NODES = 20_000;
+    static final Path DEFAULT_FILE = Paths.get(System.getProperty("yt.graph.file", "cache/related-graph.dat"));
+    private static final int FILE_VERSION = 1;
+
+    private final Path file;
+    private final int breadth;
+    private final RelatedFetcher fetcher;
+    //guarded by this
+    private final Map<String, Node> nodes = new HashMap<>();
+    private final Map<String, List<String>> querySeeds = new HashMap<>();
+
+    private static class Holder { //loaded on first use
+        static final RelatedVideoGraph INSTANCE = new RelatedVideoGraph(DEFAULT_FILE, DEFAULT_BREADTH,
+                APICaller::getRelatedVideos);
+    }
+
+    //the search response (JSON) with the videos related to a video
+    interface RelatedFetcher {
+        String fetch(String videoId, Language language) throws IOException, InterruptedException;
+    }
+
+    RelatedVideoGraph(Path file, int breadth, RelatedFetcher fetcher) {
+        if (breadth < 1) {
+            throw new IllegalArgumentException("The breadth must be at least 1 (was " + breadth + ")");
+        }
+        this.file = file;
+        this.breadth = breadth;
+        this.fetcher = fetcher;
+        load();
+    }
+
+    static RelatedVideoGraph getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    //the seed videos of a query. Only a query which was never searched costs a search call.
+    List<String> seedsForQuery(String query, Language language) throws IOException, InterruptedException {
+        String key = queryKey(query, language);
+        synchronized (this) {
+            var seeds = querySeeds.get(key);
+            if (seeds != null) {
+                return seeds;
+            }
+        }
+        var result = APIController.fromJsonToVideoList(APICaller.getVideosByQuery(query, language));
+        if (result == null || result.items == null) {
+            throw new IllegalStateException("Searching for \"" + query + "\" did not work");
+        }
+        return addQueryResult(query, language, result);
+    }
+
+    //true if the query was searched before, so its seeds cost nothing
+    synchronized boolean isKnownQuery(String query, Language language) {
+        return querySeeds.containsKey(queryKey(query, language));
+    }
+
+    //stores the search result of a query, its videos become the seeds of the query
+    List<String> addQueryResult(String query, Language language, VideoList result) {
+        List<String> seeds = new ArrayList<>();
+        synchronized (this) {
+            for (var item : result.items) {
+                if (item.id != null && item.id.videoId != null && addNode(item)) {
+                    seeds.add(item.id.videoId);
+                }
+            }
+            querySeeds.put(queryKey(query, language), seeds);
+        }
+        save();
+        return seeds;
+    }
+
+    //Up to `count` videos reachable from the seeds, nearer ones first and in random order per node. At most
+    //`maxExpansions` videos without known related videos are expanded on the way.
+    List<VideoList.Item> collect(List<String> seeds, int count, int maxExpansions, Language language)
+            throws IOException, InterruptedException {
+        var dealer = HandDealer.create(String.join(",", seeds) + "|" + count);
+        List<VideoList.Item> videos = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        var seedDeck = dealer.deck(seeds);
+        while (seedDeck.remaining() > 0) {
+            String id = seedDeck.next();
+            if (seen.add(id)) {
+                queue.add(id);
+            }
+        }
+
+        int expansions = 0;
+        boolean changed = false;
+        while (!queue.isEmpty() && videos.size() < count) {
+            String id = queue.poll();
+            Node node;
+            synchronized (this) {
+                node = nodes.get(id);
+            }
+            if (node == null) {
+                continue;
+            }
+            videos.add(node.toItem());
+
+            List<String> related;
+            synchronized (this) {
+                related = node.related == null ? null : new ArrayList<>(node.related);
+            }
+            if (related == null && expansions < maxExpansions) {
+                expansions++;
+                related = expand(node, language);
+                changed |= related != null;
+            }
+            if (related != null) {
+                var deck = dealer.deck(related);
+                while (deck.remaining() > 0) {
+                    String next = deck.next();
+                    if (seen.add(next)) {
+                        queue.add(next);
+                    }
+                }
+            }
+        }
+        if (changed) {
+            save();
+        }
+        return videos;
+    }
+
+    synchronized int size() {
+        return nodes.size();
+    }
+
+    synchronized boolean isExpanded(String videoId) {
+        var node = nodes.get(videoId);
+        return node != null && node.related != null;
+    }
+
+    //fetches the related videos of this node and stores the edges. null if YouTube did not answer with a list of
+    //videos (quota, open circuit, an error response), the node then stays unexpanded and is tried again later.
+    private List<String> expand(Node node, Language language) throws IOException, InterruptedException {
+        VideoList result;
+        try {
+            result = APIController.fromJsonToVideoList(fetcher.fetch(node.videoId, language));
+        } catch (RuntimeException e) {
+            System.out.println("Expanding video " + node.videoId + " did not work: " + e);
+            return null;
+        }
+        if (result == null || result.items == null) {
+            System.out.println("Expanding video " + node.videoId + " did not work: no list of videos in the response");
+            return null;
+        }
+        List<String> related = new ArrayList<>();
+        synchronized (this) {
+            for (var item : result.items) {
+                if (related.size() >= breadth) {
+                    break;
+                }
+                if (item.id != null && item.id.videoId != null && !item.id.videoId.equals(node.videoId)
+                        && addNode(item)) {
+                    related.add(item.id.videoId);
+                }
+            }
+            node.related = related; //empty if YouTube lists no related videos, the video stays a leaf
+        }
+        return related;
+    }
+
+    //false if the graph is full and the video is not in it
+    private boolean addNode(VideoList.Item item) {
+        String id = item.id.videoId;
+        if (nodes.containsKey(id)) {
+            return true;
+        }
+        if (nodes.size() >= MAX_NODES) {
+            return false;
+        }
+        var node = new Node(id);
+        if (item.snippet != null) {
+            node.title = item.snippet.title;
+            node.publishedAt = item.snippet.publishedAt;
+            if (item.snippet.thumbnails != null && item.snippet.thumbnails.medium != null) {
+                node.thumbnail = item.snippet.thumbnails.medium.url;
+            }
+        }
+        nodes.put(id, node);
+        return true;
+    }
+
+    private static String queryKey(String query, Language language) {
+        return query.trim().toLowerCase() + "|" + (language == null ? "" : language.getISO_639_1_Code());
+    }
+
+    //disk stuff-------------------------------
+
+    private synchronized void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(file); DataInputStream data = new DataInputStream(in)) {
+            if (data.readInt() != FILE_VERSION) {
+                return;
+            }
+            int nodeCount = data.readInt();
+            for (int i = 0; i < nodeCount; i++) {
+                var node = new Node(data.readUTF());
+                node.title = readNullableUTF(data);
+                node.thumbnail = readNullableUTF(data);
+                long publishedAt = data.readLong();
+                node.publishedAt = publishedAt == Long.MIN_VALUE ? null : new Date(publishedAt);
+                int relatedCount = data.readInt();
+                if (relatedCount >= 0) {
+                    node.related = new ArrayList<>(relatedCount);
+                    for (int r = 0; r < relatedCount; r++) {
+                        node.related.add(data.readUTF());
+                    }
+                }
+                nodes.put(node.videoId, node);
+            }
+            int queryCount = data.readInt();
+            for (int i = 0; i < queryCount; i++) {
+                String key = data.readUTF();
+                int seedCount = data.readInt();
+                List<String> seeds = new ArrayList<>(seedCount);
+                for (int s = 0; s < seedCount; s++) {
+                    seeds.add(data.readUTF());
+                }
+                querySeeds.put(key, seeds);
+            }
+        } catch (IOException e) {
+            System.out.println("Reading the related video graph did not work, starting with an empty one: " + e);
+            nodes.clear();
+            querySeeds.clear();
+        }
+    }
+
+    private synchronized void save() {
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "graph", ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp); DataOutputStream data = new DataOutputStream(out)) {
+                data.writeInt(FILE_VERSION);
+                data.writeInt(nodes.size());
+                for (var node : nodes.values()) {
+                    data.writeUTF(node.videoId);
+                    writeNullableUTF(data, node.title);
+                    writeNullableUTF(data, node.thumbnail);
+                    data.writeLong(node.publishedAt == null ? Long.MIN_VALUE : node.publishedAt.getTime());
+                    data.writeInt(node.related == null ? -1 : node.related.size()); //-1: not expanded yet
+                    if (node.related != null) {
+                        for (String r : node.related) {
+                            data.writeUTF(r);
+                        }
+                    }
+                }
+                data.writeInt(querySeeds.size());
+                for (var e : querySeeds.entrySet()) {
+                    data.writeUTF(e.getKey());
+                    data.writeInt(e.getValue().size());
+                    for (String s : e.getValue()) {
+                        data.writeUTF(s);
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Saving the related video graph did not work: " + e);
+        }
+    }
+
+    private static String readNullableUTF(DataInputStream data) throws IOException {
+        return data.readBoolean() ? data.readUTF() : null;
+    }
+
+    private static void writeNullableUTF(DataOutputStream data, String s) throws IOException {
+        data.writeBoolean(s != null);
+        if (s != null) {
+            data.writeUTF(s);
+        }
+    }
+
+    private static class Node {
+        final String videoId;
+        String title;
+        String thumbnail;
+        Date publishedAt;
+        List<String> related; //null until the video was expanded
+
+        Node(String videoId) {
+            this.videoId = videoId;
+        }
+
+        VideoList.Item toItem() {
+            var i = new VideoList().new Item();
+            i.id = i.new itemId();
+            i.id.videoId = videoId;
+            var s = i.new Snippet();
+            s.title = title;
+            s.publishedAt = publishedAt;
+            s.thumbnails = s.new Thumbnails();
+            s.thumbnails.medium = s.thumbnails.new Thumbnail();
+            s.thumbnails.medium.url = thumbnail;
+            i.snippet = s;
+            return i;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+//Two tier cache for responses of the YT API. The most recently used entries are kept in memory (LRU), all entries
+//are also written to disk so they survive a restart. Entries are keyed by endpoint and parameters (without the API
+//key) and keep the ETag of the response, so an expired entry can be revalidated with If-None-Match. The disk tier is
+//capped too, when it is full the least recently written files are deleted.
+class ResponseCache {
+    static final int DEFAULT_MEMORY_ENTRIES = 512;
+    static final int DEFAULT_DISK_ENTRIES = 20_000;
+    static final Path DEFAULT_DIRECTORY = Paths.get(System.getProperty("yt.cache.dir", "cache/youtube"));
+    private static final int FILE_VERSION = 1;
+
+    private static final String FILE_SUFFIX = ".entry";
+
+    private static final ResponseCache INSTANCE = new ResponseCache(DEFAULT_DIRECTORY, DEFAULT_MEMORY_ENTRIES,
+            DEFAULT_DISK_ENTRIES);
+
+    private final Path directory;
+    private final Map<String, Entry> memory;
+    private final int diskEntries;
+    private int filesOnDisk = -1; //counted when the first file is written, guarded by this
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidated = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+
+    ResponseCache(Path directory, int memoryEntries, int diskEntries) {
+        this.directory = directory;
+        this.diskEntries = diskEntries;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) { //access order -> least recently used first
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+    }
+
+    static ResponseCache getInstance() {
+        return INSTANCE;
+    }
+
+    //returns the entry for this key, fresh or expired, or null if there is none
+    Entry get(String key) {
+        Entry entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+        }
+        if (entry == null) {
+            entry = readFromDisk(key);
+            if (entry != null) {
+                synchronized (memory) {
+                    memory.put(key, entry);
+                }
+            }
+        }
+        return entry;
+    }
+
+    void put(String key, Entry entry) {
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        writeToDisk(key, entry);
+    }
+
+    //Stores what YouTube answered to a call with this key and returns the body for the caller. A 304 confirms the
+    //cached entry (which was sent as If-None-Match) without a body, a 200 replaces it. Error responses are not cached.
+    String store(String key, Entry cached, int status, String body, String etag) {
+        if (status == 304 && cached != null) { //not modified
+            recordRevalidated();
+            put(key, cached.revalidated());
+            return cached.body;
+        }
+        if (status == 200) {
+            put(key, new Entry(body, etag, System.currentTimeMillis()));
+        }
+        return body;
+    }
+
+    void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    void recordRevalidated() { //an expired entry was confirmed by a 304
+        revalidated.incrementAndGet();
+    }
+
+    void recordStale() { //an expired entry was used because YouTube could not be reached
+        stale.incrementAndGet();
+    }
+
+    long getHitCount() {
+        return hits.get();
+    }
+
+    long getMissCount() {
+        return misses.get();
+    }
+
+    long getRevalidatedCount() {
+        return revalidated.get();
+    }
+
+    long getStaleCount() {
+        return stale.get();
+    }
+
+    //disk stuff-------------------------------
+
+    private Entry readFromDisk(String key) {
+        Path file = fileFor(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(file); DataInputStream data = new DataInputStream(in)) {
+            if (data.readInt() != FILE_VERSION || !key.equals(data.readUTF())) {
+                return null;
+            }
+            String etag = data.readUTF();
+            long fetchedAt = data.readLong();
+            byte[] body = new byte[data.readInt()];
+            data.readFully(body);
+            return new Entry(new String(body, StandardCharsets.UTF_8), etag.isEmpty() ? null : etag, fetchedAt);
+        } catch (IOException e) {
+            System.out.println("Reading the cached YT response did not work: " + e);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, Entry entry) {
+        Path file = fileFor(key);
+        try {
+            Files.createDirectories(directory);
+            boolean added = !Files.exists(file);
+            Path tmp = Files.createTempFile(directory, "entry", ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp); DataOutputStream data = new DataOutputStream(out)) {
+                byte[] body = entry.body.getBytes(StandardCharsets.UTF_8);
+                data.writeInt(FILE_VERSION);
+                data.writeUTF(key);
+                data.writeUTF(entry.etag == null ? "" : entry.etag);
+                data.writeLong(entry.fetchedAt);
+                data.writeInt(body.length);
+                data.write(body);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (added) {
+                fileAdded();
+            }
+        } catch (IOException e) {
+            System.out.println("Writing the YT response to the cache did not work: " + e);
+        }
+    }
+
+    private synchronized void fileAdded() throws IOException {
+        if (filesOnDisk < 0) {
+            filesOnDisk = listFiles().size(); //includes the file which was just written
+        } else {
+            filesOnDisk++;
+        }
+        if (filesOnDisk > diskEntries) {
+            prune();
+        }
+    }
+
+    //deletes the least recently written files until a tenth of the cap is free again, so not every write prunes
+    private void prune() throws IOException {
+        List<Path> files = listFiles();
+        Map<Path, Long> written = new HashMap<>();
+        for (Path f : files) {
+            written.put(f, lastModified(f));
+        }
+        files.sort(Comparator.comparingLong(written::get));
+        int keep = diskEntries - diskEntries / 10;
+        int deleted = 0;
+        for (int i = 0; i < files.size() - keep; i++) {
+            if (Files.deleteIfExists(files.get(i))) {
+                deleted++;
+            }
+        }
+        filesOnDisk = files.size() - deleted;
+    }
+
+    private List<Path> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(FILE_SUFFIX))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0; //deleted in the meantime
+        }
+    }
+
+    int getDiskEntryCount() throws IOException {
+        return Files.isDirectory(directory) ? listFiles().size() : 0;
+    }
+
+    private Path fileFor(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (byte b : hash) {
+                name.append(String.format("%02x", b));
+            }
+            return directory.resolve(name.append(FILE_SUFFIX).toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static class Entry {
+        final String body;
+        final String etag;
+        final long fetchedAt; //epoch millis
+
+        Entry(String body, String etag, long fetchedAt) {
+            this.body = body;
+            this.etag = etag;
+            this.fetchedAt = fetchedAt;
+        }
+
+        boolean isFresh(Duration ttl) {
+            return System.currentTimeMillis() - fetchedAt < ttl.toMillis();
+        }
+
+        Entry revalidated() { //same data, confirmed by YouTube right now
+            return new Entry(body, etag, System.currentTimeMillis());
+        }
+    }
+}
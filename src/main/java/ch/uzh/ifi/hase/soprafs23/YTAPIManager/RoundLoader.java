@@ -0,0 +1,14 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.IOException;
+import java.util.List;
+import org.springframework.data.util.Pair;
+
+import ch.uzh.ifi.hase.soprafs23.game.Hand;
+import ch.uzh.ifi.hase.soprafs23.game.VideoData;
+
+//builds the data for one round (the video and the hands of the players)
+@FunctionalInterface
+interface RoundLoader {
+    Pair<VideoData, List<Hand>> load() throws IOException, InterruptedException;
+}
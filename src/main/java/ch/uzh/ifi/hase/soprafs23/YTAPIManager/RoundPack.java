@@ -0,0 +1,25 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.util.List;
+import org.springframework.data.util.Pair;
+
+import ch.uzh.ifi.hase.soprafs23.game.Hand;
+import ch.uzh.ifi.hase.soprafs23.game.VideoData;
+
+//The data of one round: the video to guess and the hands of the players. The videoId is kept so a game can tell
+//which videos it already played.
+class RoundPack {
+    final String videoId;
+    final VideoData videoData;
+    final List<Hand> hands;
+
+    RoundPack(String videoId, VideoData videoData, List<Hand> hands) {
+        this.videoId = videoId;
+        this.videoData = videoData;
+        this.hands = hands;
+    }
+
+    Pair<VideoData, List<Hand>> toPair() {
+        return Pair.of(videoData, hands);
+    }
+}
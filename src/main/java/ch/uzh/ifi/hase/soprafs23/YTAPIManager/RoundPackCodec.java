@@ -0,0 +1,306 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.data.util.Pair;
+
+import ch.uzh.ifi.hase.soprafs23.entity.Comment;
+import ch.uzh.ifi.hase.soprafs23.game.Correctness;
+import ch.uzh.ifi.hase.soprafs23.game.Hand;
+import ch.uzh.ifi.hase.soprafs23.game.VideoData;
+
+//Binary format for a list of round packs, used for the round pack corpus and wherever packs are stored.
+//
+//Version 2 (written):
+//  int MAGIC, int version, int packCount, int stringCount, int commentCount,
+//  int[packCount] pack offsets, int[stringCount] string offsets, int[commentCount] comment offsets,
+//  strings, comments, packs
+//The comments of all packs are stored once in a shared comment table (packs of one harvest use the same comments),
+//the videoIds of the comments in a shared string table. A hand is a list of varints (commentIndex << 2 | correctness).
+//Numbers are varints (signed ones zigzag encoded), a nullable number is 0 for null and value + 1 otherwise, strings
+//are a varint (length + 1, 0 for null) followed by UTF-8. Decoding reads directly from the buffer (e.g. a memory
+//mapped file) through the offset tables, nothing is decoded before it is needed.
+class RoundPackCodec {
+    static final int MAGIC = 0x59545250; //"YTRP"
+    static final int VERSION_2 = 2; //version 1 was never released
+    static final int CURRENT_VERSION = VERSION_2;
+
+    private static final Correctness[] CORRECTNESS = Correctness.values();
+
+    private RoundPackCodec() {
+    }
+
+    static byte[] encode(RoundPack pack) {
+        return encode(List.of(pack));
+    }
+
+    static byte[] encode(List<RoundPack> packs) {
+        //shared tables
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> stringIndex = new HashMap<>();
+        List<Comment> comments = new ArrayList<>();
+        Map<List<Object>, Integer> commentIndex = new HashMap<>(); //equal comments are stored once
+        for (var pack : packs) {
+            for (var hand : pack.hands) {
+                for (var p : hand.getComments()) {
+                    var c = p.getFirst();
+                    commentIndex.computeIfAbsent(commentKey(c), k -> {
+                        comments.add(c);
+                        return comments.size() - 1;
+                    });
+                    if (c.videoId != null) {
+                        stringIndex.computeIfAbsent(c.videoId, s -> {
+                            strings.add(s);
+                            return strings.size() - 1;
+                        });
+                    }
+                }
+            }
+        }
+
+        var body = new Out();
+        int[] stringOffsets = new int[strings.size()];
+        for (int i = 0; i < strings.size(); i++) {
+            stringOffsets[i] = body.size();
+            body.string(strings.get(i));
+        }
+        int[] commentOffsets = new int[comments.size()];
+        for (int i = 0; i < comments.size(); i++) {
+            commentOffsets[i] = body.size();
+            var c = comments.get(i);
+            body.string(c.commentId);
+            body.varint(c.videoId == null ? 0 : stringIndex.get(c.videoId) + 1);
+            body.string(c.content);
+            body.string(c.author);
+            body.nullable(c.likes == null ? null : (long) c.likes);
+            body.nullable(c.date == null ? null : c.date.getTime());
+        }
+        int[] packOffsets = new int[packs.size()];
+        for (int i = 0; i < packs.size(); i++) {
+            packOffsets[i] = body.size();
+            var pack = packs.get(i);
+            var v = pack.videoData;
+            body.string(pack.videoId);
+            body.nullable(v.views == null ? null : (long) v.views);
+            body.nullable(v.likes == null ? null : (long) v.likes);
+            body.string(v.title);
+            body.string(v.thumbnail);
+            body.nullable(v.releaseDate == null ? null : v.releaseDate.getTime());
+            body.nullable(v.videoLength == null ? null : v.videoLength.getSeconds());
+            body.varint(pack.hands.size());
+            for (var hand : pack.hands) {
+                var cards = hand.getComments();
+                body.varint(cards.size());
+                for (var p : cards) {
+                    body.varint(((long) commentIndex.get(commentKey(p.getFirst())) << 2) | p.getSecond().ordinal());
+                }
+            }
+        }
+
+        int headerBytes = 5 * Integer.BYTES + (packs.size() + strings.size() + comments.size()) * Integer.BYTES;
+        ByteBuffer out = ByteBuffer.allocate(headerBytes + body.size());
+        out.putInt(MAGIC).putInt(VERSION_2).putInt(packs.size()).putInt(strings.size()).putInt(comments.size());
+        for (int offset : packOffsets) {
+            out.putInt(headerBytes + offset);
+        }
+        for (int offset : stringOffsets) {
+            out.putInt(headerBytes + offset);
+        }
+        for (int offset : commentOffsets) {
+            out.putInt(headerBytes + offset);
+        }
+        out.put(body.toByteArray());
+        return out.array();
+    }
+
+    //view of encoded packs, the buffer is not copied
+    static Packs view(ByteBuffer data) {
+        if (data.limit() < 3 * Integer.BYTES || data.getInt(0) != MAGIC) {
+            throw new IllegalStateException("The data are no encoded round packs");
+        }
+        int version = data.getInt(4);
+        if (version == VERSION_2) {
+            return new PacksV2(data);
+        }
+        throw new IllegalStateException("Unknown round pack codec version " + version);
+    }
+
+    static RoundPack decode(ByteBuffer data) {
+        return view(data).get(0);
+    }
+
+    private static List<Object> commentKey(Comment c) {
+        return Arrays.asList(c.commentId, c.videoId, c.content, c.author, c.likes, c.date);
+    }
+
+    //encoded round packs with random access
+    abstract static class Packs {
+        final ByteBuffer data;
+
+        Packs(ByteBuffer data) {
+            this.data = data;
+        }
+
+        abstract int getVersion();
+
+        abstract int size();
+
+        abstract RoundPack get(int index);
+
+        void checkIndex(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Pack " + index + " of " + size() + " packs");
+            }
+        }
+    }
+
+    //version 2------------------------------
+
+    private static class PacksV2 extends Packs {
+        private static final int HEADER_INTS = 5;
+        private final int packCount;
+        private final int stringCount;
+        private final int commentCount;
+
+        PacksV2(ByteBuffer data) {
+            super(data);
+            packCount = data.getInt(8);
+            stringCount = data.getInt(12);
+            commentCount = data.getInt(16);
+        }
+
+        @Override
+        int getVersion() {
+            return VERSION_2;
+        }
+
+        @Override
+        int size() {
+            return packCount;
+        }
+
+        @Override
+        RoundPack get(int index) {
+            checkIndex(index);
+            var in = at(offset(index));
+            String videoId = readString(in);
+            Long views = readNullable(in);
+            Long likes = readNullable(in);
+            String title = readString(in);
+            String thumbnail = readString(in);
+            Long releaseDate = readNullable(in);
+            Long videoLength = readNullable(in);
+            var videoData = new VideoData(toInteger(views), toInteger(likes), title, thumbnail,
+                    releaseDate == null ? null : new Date(releaseDate),
+                    videoLength == null ? null : Duration.ofSeconds(videoLength));
+
+            int handCount = (int) readVarint(in);
+            List<Hand> hands = new ArrayList<>(handCount);
+            for (int h = 0; h < handCount; h++) {
+                int cardCount = (int) readVarint(in);
+                List<Pair<Comment, Correctness>> cards = new ArrayList<>(cardCount);
+                for (int i = 0; i < cardCount; i++) {
+                    long card = readVarint(in);
+                    cards.add(Pair.of(comment((int) (card >>> 2)), CORRECTNESS[(int) (card & 3)]));
+                }
+                hands.add(new Hand(cards));
+            }
+            return new RoundPack(videoId, videoData, hands);
+        }
+
+        private Comment comment(int index) {
+            if (index >= commentCount) {
+                throw new IllegalStateException("Comment " + index + " of " + commentCount + " comments");
+            }
+            var in = at(offset(packCount + stringCount + index));
+            String commentId = readString(in);
+            int videoIdRef = (int) readVarint(in);
+            String videoId = videoIdRef == 0 ? null : readString(at(offset(packCount + videoIdRef - 1)));
+            String content = readString(in);
+            String author = readString(in);
+            Long likes = readNullable(in);
+            Long date = readNullable(in);
+            return new Comment(commentId, videoId, content, author, toInteger(likes), date == null ? null : new Date(date));
+        }
+
+        //the i-th entry of the offset tables (packs, then strings, then comments)
+        private int offset(int i) {
+            return data.getInt((HEADER_INTS + i) * Integer.BYTES);
+        }
+
+        private ByteBuffer at(int position) {
+            ByteBuffer in = data.duplicate(); //own position, the data may be shared by several threads
+            in.position(position);
+            return in;
+        }
+    }
+
+    private static Integer toInteger(Long l) {
+        return l == null ? null : Math.toIntExact(l);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    private static Long readNullable(ByteBuffer in) {
+        long v = readVarint(in);
+        if (v == 0) {
+            return null;
+        }
+        long zigzag = v - 1;
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    //decodes the UTF-8 bytes straight out of the buffer, without copying them into an array first
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarint(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        ByteBuffer bytes = in.slice();
+        bytes.limit(length);
+        in.position(in.position() + length);
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+
+    private static class Out extends ByteArrayOutputStream {
+        void varint(long value) {
+            while ((value & ~0x7fL) != 0) {
+                write((int) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void nullable(Long value) {
+            varint(value == null ? 0 : ((value << 1) ^ (value >> 63)) + 1);
+        }
+
+        void string(String s) {
+            if (s == null) {
+                varint(0);
+                return;
+            }
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length + 1L);
+            write(utf8, 0, utf8.length);
+        }
+    }
+}
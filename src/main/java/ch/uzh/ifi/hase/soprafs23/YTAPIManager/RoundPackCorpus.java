@@ -0,0 +1,100 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Read only view of a corpus file written by RoundPackCorpusBuilder. The file is memory mapped once per process and
+//packs are decoded directly from the mapping by the RoundPackCodec, nothing is parsed up front.
+class RoundPackCorpus {
+    private static final Map<Path, RoundPackCorpus> OPEN = new ConcurrentHashMap<>();
+
+    private final RoundPackCodec.Packs packs;
+    private final int count;
+
+    private RoundPackCorpus(Path file) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); //stays valid after closing
+        }
+        try {
+            packs = RoundPackCodec.view(data);
+        } catch (IllegalStateException e) {
+            throw new IllegalStateException(file + " is not a round pack corpus: " + e.getMessage(), e);
+        }
+        count = packs.size();
+        if (count < 1) {
+            throw new IllegalStateException("The round pack corpus " + file + " is empty");
+        }
+    }
+
+    //the corpus of this file, mapped on first use
+    static RoundPackCorpus open(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        var corpus = OPEN.get(key);
+        if (corpus == null) {
+            corpus = new RoundPackCorpus(key);
+            var other = OPEN.putIfAbsent(key, corpus);
+            if (other != null) {
+                corpus = other;
+            }
+        }
+        return corpus;
+    }
+
+    int size() {
+        return count;
+    }
+
+    int getVersion() {
+        return packs.getVersion();
+    }
+
+    RoundPack get(int index) {
+        return packs.get(index);
+    }
+
+    Deck newDeck() {
+        return new Deck(new SplittableRandom());
+    }
+
+    Deck newDeck(long seed) {
+        return new Deck(new SplittableRandom(seed));
+    }
+
+    //Random order of the packs for one game. Every draw is one step of a Fisher-Yates shuffle, so drawing is O(1)
+    //and no pack is drawn twice before every pack was drawn once. Then the deck starts over.
+    class Deck {
+        private final int[] order = new int[count];
+        private final SplittableRandom random;
+        private int drawn = 0;
+
+        private Deck(SplittableRandom random) {
+            this.random = random;
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+        }
+
+        synchronized RoundPack draw() {
+            if (drawn == count) {
+                drawn = 0;
+            }
+            int pick = drawn + random.nextInt(count - drawn);
+            int index = order[pick];
+            order[pick] = order[drawn];
+            order[drawn] = index;
+            drawn++;
+            return get(index);
+        }
+
+        synchronized int remaining() {
+            return count - drawn;
+        }
+    }
+}
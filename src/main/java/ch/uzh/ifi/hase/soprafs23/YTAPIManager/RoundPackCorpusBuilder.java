@@ -0,0 +1,97 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import ch.uzh.ifi.hase.soprafs23.game.Correctness;
+
+//Collects round packs from playlists and game data files and writes them into a corpus file for RoundPackCorpus.
+//Every video is only added once. Run main to build a corpus:
+//  RoundPackCorpusBuilder <corpus file> <playlistId>...
+class RoundPackCorpusBuilder {
+    static final int VIDEOS_PER_PLAYLIST = 50;
+
+    private final List<RoundPack> packs = new ArrayList<>();
+    private final Set<String> videoIds = new HashSet<>();
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: RoundPackCorpusBuilder <corpus file> <playlistId>...");
+            return;
+        }
+        var builder = new RoundPackCorpusBuilder();
+        builder.addGameDataFile("src/main/resources/GameData1.txt");
+        for (int i = 1; i < args.length; i++) {
+            try {
+                System.out.println(args[i] + ": " + builder.addPlaylist(args[i], Language.ENGLISH) + " packs added");
+            } catch (RuntimeException e) {
+                System.out.println(args[i] + " could not be imported: " + e);
+            }
+        }
+        builder.write(Paths.get(args[0]));
+        System.out.println(builder.size() + " packs written to " + args[0]);
+    }
+
+    //false if a pack of this video is already in the corpus
+    boolean add(RoundPack pack) {
+        if (!videoIds.add(pack.videoId)) {
+            return false;
+        }
+        packs.add(pack);
+        return true;
+    }
+
+    int addPlaylist(String playlistId, Language language) throws IOException, InterruptedException {
+        int added = 0;
+        for (var pack : APIController.getRoundPacksByPlaylist(playlistId, language, new CommentHarvester(),
+                VIDEOS_PER_PLAYLIST)) {
+            if (add(pack)) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    //imports a file in the GameData1.txt format. The file has no videoId, it is taken from the correct comments.
+    boolean addGameDataFile(String path) throws IOException {
+        return add(readGameDataFile(path));
+    }
+
+    static RoundPack readGameDataFile(String path) throws IOException {
+        var gameData = APIController.readFromFile(path);
+        String videoId = null;
+        for (var hand : gameData.getSecond()) {
+            for (var p : hand.getComments()) {
+                if (p.getSecond() == Correctness.CORRECT) {
+                    videoId = p.getFirst().videoId;
+                }
+            }
+        }
+        if (videoId == null) {
+            throw new IllegalStateException(path + " contains no correct comment");
+        }
+        return new RoundPack(videoId, gameData.getFirst(), gameData.getSecond());
+    }
+
+    int size() {
+        return packs.size();
+    }
+
+    void write(Path file) throws IOException {
+        if (packs.isEmpty()) {
+            throw new IllegalStateException("A corpus needs at least one round pack");
+        }
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "corpus", ".tmp");
+        Files.write(tmp, RoundPackCodec.encode(packs)); //the comments shared by packs are stored once
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
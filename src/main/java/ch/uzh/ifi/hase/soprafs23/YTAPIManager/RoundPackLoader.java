@@ -0,0 +1,10 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.IOException;
+import java.util.List;
+
+//builds the round packs of one harvest, one pack per harvested video
+@FunctionalInterface
+interface RoundPackLoader {
+    List<RoundPack> load() throws IOException, InterruptedException;
+}
@@ -0,0 +1,163 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.data.util.Pair;
+
+//Process wide pool of ready harvests per (key, language). The key is a playlistId or a query (see HarvestSettings).
+//A harvest is the list of round packs built from one fetch of the playlist or query. Games with the same playlist take their rounds from here instead of calling YouTube
+//themselves. After every take the pool refills the key in the background until `targetReady` harvests are ready
+//again, but never keeps more than `maxPerKey` harvests of one key.
+//Keys which were not used for `idleTimeout` are evicted, and if there are more than `maxKeys` keys the least
+//recently used ones are dropped.
+//The background refills of a key always use the loader of the take which created the key, so a key must contain
+//everything the loader depends on (see HarvestSettings).
+class RoundPackPool {
+    static final int DEFAULT_TARGET_READY = 1; //one harvest already covers a round per video of the playlist
+    static final int DEFAULT_MAX_PER_KEY = 4;
+    static final int DEFAULT_MAX_KEYS = 32;
+    static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    private static final int THREADS = 4;
+
+    private static final RoundPackPool INSTANCE = new RoundPackPool(DEFAULT_TARGET_READY, DEFAULT_MAX_PER_KEY,
+            DEFAULT_MAX_KEYS, DEFAULT_IDLE_TIMEOUT);
+
+    private final ExecutorService refillExecutor = Executors.newFixedThreadPool(THREADS,
+            new DaemonThreadFactory("round-pool"));
+    private final Map<Pair<String, Language>, Entry> entries = new ConcurrentHashMap<>();
+    private final int targetReady;
+    private final int maxPerKey;
+    private final int maxKeys;
+    private final Duration idleTimeout;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    RoundPackPool(int targetReady, int maxPerKey, int maxKeys, Duration idleTimeout) {
+        if (targetReady < 0 || maxPerKey < targetReady || maxKeys < 1) {
+            throw new IllegalArgumentException("Invalid pool limits: targetReady=" + targetReady + " maxPerKey="
+                    + maxPerKey + " maxKeys=" + maxKeys);
+        }
+        this.targetReady = targetReady;
+        this.maxPerKey = maxPerKey;
+        this.maxKeys = maxKeys;
+        this.idleTimeout = idleTimeout;
+    }
+
+    static RoundPackPool getInstance() {
+        return INSTANCE;
+    }
+
+    //takes a ready harvest of this playlist and language. If none is ready it is loaded in the calling thread.
+    List<RoundPack> take(String playlistId, Language language, RoundPackLoader loader)
+            throws IOException, InterruptedException {
+        var key = Pair.of(playlistId, language);
+        evictColdKeys(key);
+        Entry entry = entries.computeIfAbsent(key, k -> new Entry(loader));
+        entry.lastAccess = System.nanoTime();
+
+        List<RoundPack> packs = entry.ready.poll();
+        refill(entry);
+        if (packs != null) {
+            hits.incrementAndGet();
+            return packs;
+        }
+        misses.incrementAndGet();
+        return loader.load();
+    }
+
+    //takes a ready harvest of this key without ever loading one, null if none is ready
+    List<RoundPack> poll(String key, Language language) {
+        Entry entry = entries.get(Pair.of(key, language));
+        if (entry == null) {
+            return null;
+        }
+        entry.lastAccess = System.nanoTime();
+        List<RoundPack> packs = entry.ready.poll();
+        if (packs != null) {
+            hits.incrementAndGet();
+            refill(entry);
+        }
+        return packs;
+    }
+
+    long getHitCount() {
+        return hits.get();
+    }
+
+    long getMissCount() {
+        return misses.get();
+    }
+
+    int getReadyCount(String playlistId, Language language) {
+        Entry entry = entries.get(Pair.of(playlistId, language));
+        return entry == null ? 0 : entry.ready.size();
+    }
+
+    private void refill(Entry entry) {
+        synchronized (entry) {
+            while (entry.ready.size() + entry.loading.get() < targetReady) {
+                entry.loading.incrementAndGet();
+                refillExecutor.execute(() -> load(entry));
+            }
+        }
+    }
+
+    private void load(Entry entry) {
+        CallPriority.set(CallPriority.WARMING);
+        try {
+            var packs = entry.loader.load();
+            if (entry.ready.size() < maxPerKey && !entry.evicted) {
+                entry.ready.add(packs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.out.println("Refilling the round pool did not work: " + e);
+        } finally {
+            entry.loading.decrementAndGet();
+            CallPriority.reset();
+        }
+    }
+
+    private void evictColdKeys(Pair<String, Language> keyToKeep) {
+        long now = System.nanoTime();
+        entries.entrySet().removeIf(e -> {
+            boolean cold = now - e.getValue().lastAccess > idleTimeout.toNanos();
+            if (cold) {
+                e.getValue().evicted = true;
+            }
+            return cold;
+        });
+        while (!entries.containsKey(keyToKeep) && entries.size() >= maxKeys) {
+            var leastRecent = entries.entrySet().stream()
+                    .min(Comparator.comparingLong(e -> e.getValue().lastAccess));
+            if (leastRecent.isEmpty()) {
+                break;
+            }
+            leastRecent.get().getValue().evicted = true;
+            entries.remove(leastRecent.get().getKey());
+        }
+    }
+
+    private static class Entry {
+        final ConcurrentLinkedDeque<List<RoundPack>> ready = new ConcurrentLinkedDeque<>();
+        final AtomicInteger loading = new AtomicInteger();
+        final RoundPackLoader loader; //of the take which created the entry
+        volatile long lastAccess = System.nanoTime();
+        volatile boolean evicted = false;
+
+        Entry(RoundPackLoader loader) {
+            this.loader = loader;
+        }
+    }
+}
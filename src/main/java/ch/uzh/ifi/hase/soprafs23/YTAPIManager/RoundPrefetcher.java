@@ -0,0 +1,95 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.springframework.data.util.Pair;
+
+import ch.uzh.ifi.hase.soprafs23.game.Hand;
+import ch.uzh.ifi.hase.soprafs23.game.VideoData;
+
+//Prepares the round packs of one game ahead of time. Every take() hands out the oldest prepared pack and then starts
+//building new ones in the background until `depth` packs are ready or loading, so while round N is played
+//round N+1 is already being fetched. A pack which was not prepared is loaded in the calling thread first, a prefetch
+//started at the same time would only fetch the same harvest twice. Closing the prefetcher cancels all packs which
+//are still loading.
+class RoundPrefetcher {
+    static final int DEFAULT_DEPTH = 1;
+    private static final int THREADS = 4;
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS,
+            new DaemonThreadFactory("round-prefetch"));
+
+    private final RoundLoader loader;
+    private final Deque<Future<Pair<VideoData, List<Hand>>>> buffer = new ArrayDeque<>();
+    private final int depth;
+    private boolean closed = false;
+
+    RoundPrefetcher(RoundLoader loader, int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Prefetch depth must not be negative (was " + depth + ")");
+        }
+        this.loader = loader;
+        this.depth = depth;
+    }
+
+    Pair<VideoData, List<Hand>> take() throws IOException, InterruptedException {
+        Future<Pair<VideoData, List<Hand>>> next;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The round prefetcher of this game is already closed");
+            }
+            next = buffer.poll();
+        }
+
+        var round = next == null ? loader.load() : await(next); //nothing prepared yet: loaded in the calling thread
+        synchronized (this) {
+            if (!closed) {
+                refill();
+            }
+        }
+        return round;
+    }
+
+    private Pair<VideoData, List<Hand>> await(Future<Pair<VideoData, List<Hand>>> next)
+            throws IOException, InterruptedException {
+        try {
+            return next.get();
+        } catch (ExecutionException | CancellationException e) {
+            //the background attempt failed, this round gets a fresh attempt in the calling thread
+            System.out.println("Prefetching the next round did not work, loading it now: " + e);
+            return loader.load();
+        }
+    }
+
+    synchronized void close() {
+        closed = true;
+        for (var pending : buffer) {
+            pending.cancel(true);
+        }
+        buffer.clear();
+    }
+
+    synchronized int getPreparedCount() {
+        return buffer.size();
+    }
+
+    private void refill() {
+        while (buffer.size() < depth) {
+            buffer.add(EXECUTOR.submit(() -> {
+                CallPriority.set(CallPriority.PREFETCH);
+                try {
+                    return loader.load();
+                } finally {
+                    CallPriority.reset();
+                }
+            }));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.IOException;
+import java.util.List;
+
+//A way to get the round packs of a game, e.g. from a playlist, a search or the offline corpus. The sources of a game
+//are tried one after the other by a RoundSourceChain.
+interface RoundSource {
+    String getName();
+
+    //quota units one harvest of this source is expected to cost
+    int estimateQuotaCost(HarvestSettings settings);
+
+    //latency of a harvest assumed until the first harvest was measured
+    long getExpectedLatencyMillis();
+
+    //false for sources whose rounds do not depend on the playlist or query of the game (the offline corpus).
+    //They are only asked once no other source could deliver.
+    boolean followsSettings();
+
+    //one harvest, or null if the source has nothing for these settings right now (which is not an error)
+    List<RoundPack> load(HarvestSettings settings) throws IOException, InterruptedException;
+}
@@ -0,0 +1,120 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Tries the round sources of a game one after the other until one delivers a harvest. The sources which follow the
+//settings of the game are tried cheapest first: the score of a source is its measured latency plus a penalty per
+//quota unit it is expected to cost, and a failure counts as a very slow harvest. So the chain reorders itself when a
+//source gets slow or starts failing. Sources which ignore the settings (the offline corpus) stay at the end.
+//The latencies are measured per source and shared by all games.
+class RoundSourceChain {
+    static final long MILLIS_PER_QUOTA_UNIT = 10; //a search (100 units) weighs like one second of waiting
+    static final long FAILURE_PENALTY_MILLIS = 10_000;
+    private static final double SMOOTHING = 0.2; //weight of the newest latency in the moving average
+    private static final Map<String, SourceStats> SHARED_STATS = new ConcurrentHashMap<>();
+
+    private final List<RoundSource> sources;
+    private final Map<String, SourceStats> stats;
+
+    RoundSourceChain(List<RoundSource> sources, Map<String, SourceStats> stats) {
+        if (sources == null || sources.isEmpty()) {
+            throw new IllegalArgumentException("A game needs at least one round source");
+        }
+        this.sources = List.copyOf(sources);
+        this.stats = stats;
+    }
+
+    static RoundSourceChain of(List<RoundSourceType> types) throws IllegalArgumentException {
+        if (types == null || types.isEmpty()) {
+            throw new IllegalArgumentException("A game needs at least one round source");
+        }
+        List<RoundSource> sources = new ArrayList<>();
+        for (var type : new LinkedHashSet<>(types)) {
+            sources.add(type.getSource(types));
+        }
+        return new RoundSourceChain(sources, SHARED_STATS);
+    }
+
+    //a harvest of the first source which has one. If every source failed the first failure is thrown.
+    List<RoundPack> load(HarvestSettings settings) throws IOException, InterruptedException {
+        Exception failure = null;
+        for (var source : order(settings)) {
+            long start = System.nanoTime();
+            try {
+                var packs = source.load(settings);
+                if (packs != null && !packs.isEmpty()) {
+                    statsOf(source).record(millisSince(start));
+                    return packs;
+                }
+            } catch (IOException | RuntimeException e) {
+                statsOf(source).record(millisSince(start) + FAILURE_PENALTY_MILLIS);
+                System.out.println("Round source " + source.getName() + " did not work: " + e);
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+        throw new IllegalStateException("No round source has rounds for this game");
+    }
+
+    //the order in which the sources are tried for these settings
+    List<RoundSource> order(HarvestSettings settings) {
+        List<RoundSource> following = new ArrayList<>();
+        List<RoundSource> others = new ArrayList<>();
+        for (var source : sources) {
+            (source.followsSettings() ? following : others).add(source);
+        }
+        Map<RoundSource, Double> scores = new HashMap<>(); //a score may take a CommentIndex search, once per source
+        for (var source : following) {
+            scores.put(source, score(source, settings));
+        }
+        following.sort(Comparator.comparingDouble(scores::get)); //stable, ties keep the order
+        following.addAll(others);
+        return following;
+    }
+
+    double score(RoundSource source, HarvestSettings settings) {
+        return statsOf(source).getAverageMillis(source.getExpectedLatencyMillis())
+                + source.estimateQuotaCost(settings) * (double) MILLIS_PER_QUOTA_UNIT;
+    }
+
+    private SourceStats statsOf(RoundSource source) {
+        return stats.computeIfAbsent(source.getName(), name -> new SourceStats());
+    }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    static class SourceStats {
+        private double averageMillis;
+        private long samples = 0;
+
+        synchronized void record(long millis) {
+            averageMillis = samples == 0 ? millis : averageMillis + SMOOTHING * (millis - averageMillis);
+            samples++;
+        }
+
+        synchronized double getAverageMillis(long expectedMillis) {
+            return samples == 0 ? expectedMillis : averageMillis;
+        }
+
+        synchronized long getSampleCount() {
+            return samples;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.util.List;
+
+//The round sources a game can choose from (see YTAPIManager.setRoundSources)
+public enum RoundSourceType {
+    CACHE, //harvests already prepared for the other sources of the game, never calls YouTube
+    PLAYLIST, //the videos of the playlist
+    QUERY, //the results of a search for the query
+    RELATED, //videos related to the results of the query (RelatedVideoGraph)
+    CORPUS; //the offline corpus, or GameData1.txt if there is none. Ignores playlist and query
+
+    //the source of this type in a game with these types
+    RoundSource getSource(List<RoundSourceType> types) {
+        switch (this) {
+            case CACHE:
+                return new CachedRoundSource(types);
+            case PLAYLIST:
+                return PlaylistRoundSource.INSTANCE;
+            case QUERY:
+                return QueryRoundSource.INSTANCE;
+            case RELATED:
+                return RelatedRoundSource.INSTANCE;
+            case CORPUS:
+                return CorpusRoundSource.INSTANCE;
+            default:
+                throw new IllegalStateException("Unknown round source " + this);
+        }
+    }
+
+    //key of the harvests of this type in the RoundPackPool, null if they are not pooled
+    String getPoolKey(HarvestSettings settings) {
+        switch (this) {
+            case PLAYLIST:
+                return settings.playlistKey();
+            case QUERY:
+                return settings.searchKey();
+            case RELATED:
+                return settings.relatedKey();
+            default:
+                return null;
+        }
+    }
+}
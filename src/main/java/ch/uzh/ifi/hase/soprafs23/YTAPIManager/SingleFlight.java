@@ -0,0 +1,55 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+//Deduplicates concurrent fetches of the same key. While a fetch for a key is outstanding every further request for
+//that key gets the result of that fetch instead of starting its own. Once the fetch is done the key is free again,
+//so nothing is cached here.
+class SingleFlight<K, V> {
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    CompletableFuture<V> run(K key, Supplier<CompletableFuture<V>> fetch) {
+        calls.incrementAndGet();
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return running.copy(); //a copy, so a caller completing or timing out its future does not affect the others
+        }
+
+        try {
+            fetch.get().whenComplete((value, e) -> {
+                inFlight.remove(key, mine);
+                if (e != null) {
+                    mine.completeExceptionally(e);
+                } else {
+                    mine.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+        }
+        return mine.copy();
+    }
+
+    //number of requests which went through this SingleFlight
+    long getCallCount() {
+        return calls.get();
+    }
+
+    //number of requests which shared the fetch of an earlier request instead of fetching themselves
+    long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    int getInFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,113 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+//Statistics (views, likes, duration) per videoId. Missing ids are fetched with as few videos.list calls as possible,
+//up to MAX_IDS_PER_CALL ids per call, so the stats of a whole playlist cost a single quota unit. At most maxEntries
+//videos are kept, the least recently used are dropped first.
+class VideoStatsCache {
+    static final int MAX_IDS_PER_CALL = 50; //limit of the YT API
+    static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private final Map<String, Stats> stats; //guarded by itself
+    private final Duration ttl;
+    private final VideoInfoFetcher fetcher;
+
+    private static class Holder { //loaded on first use
+        static final VideoStatsCache INSTANCE = new VideoStatsCache(APICaller.VIDEO_INFO_TTL, DEFAULT_MAX_ENTRIES,
+                APICaller::getVideoInfoByVideoIds);
+    }
+
+    //the videos.list response (JSON) for up to MAX_IDS_PER_CALL ids
+    interface VideoInfoFetcher {
+        String fetch(List<String> videoIds) throws IOException, InterruptedException;
+    }
+
+    VideoStatsCache(Duration ttl, int maxEntries, VideoInfoFetcher fetcher) {
+        this.ttl = ttl;
+        this.fetcher = fetcher;
+        this.stats = new LinkedHashMap<>(16, 0.75f, true) { //access order -> least recently used first
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stats> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    static VideoStatsCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    //returns the stats of all the given videos. Videos YouTube does not know (deleted, private) are not in the map.
+    Map<String, Stats> getAll(List<String> videoIds) throws IOException, InterruptedException {
+        Map<String, Stats> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        synchronized (stats) {
+            for (String id : new LinkedHashSet<>(videoIds)) {
+                Stats s = stats.get(id);
+                if (s != null && s.isFresh(ttl)) {
+                    result.put(id, s);
+                } else {
+                    missing.add(id);
+                }
+            }
+        }
+
+        for (int from = 0; from < missing.size(); from += MAX_IDS_PER_CALL) {
+            var batch = missing.subList(from, Math.min(from + MAX_IDS_PER_CALL, missing.size()));
+            var videoInfoList = APIController.fromJsonVideoInfoList(fetcher.fetch(batch));
+            if (videoInfoList == null || videoInfoList.items == null) {
+                throw new IllegalStateException("The statistics of the videos could not be fetched");
+            }
+            for (var item : videoInfoList.items) {
+                Stats s = new Stats(item);
+                synchronized (stats) {
+                    stats.put(item.id, s);
+                }
+                result.put(item.id, s);
+            }
+        }
+        return result;
+    }
+
+    int size() {
+        synchronized (stats) {
+            return stats.size();
+        }
+    }
+
+    Stats get(String videoId) throws IOException, InterruptedException {
+        return getAll(List.of(videoId)).get(videoId);
+    }
+
+    static class Stats {
+        final Integer views;
+        final Integer likes;
+        final Duration duration;
+        private final long fetchedAt = System.currentTimeMillis();
+
+        Stats(VideoInfoList.Item item) {
+            //VideoData uses Integer, the few videos above 2^31 views are capped
+            views = (int) Math.min(item.statistics.viewCount, Integer.MAX_VALUE);
+            likes = (int) Math.min(item.statistics.likeCount, Integer.MAX_VALUE);
+            duration = Duration.parse(item.contentDetails.duration);
+        }
+
+        Stats(Integer views, Integer likes, Duration duration) { //e.g. stats stored in the CommentIndex
+            this.views = views;
+            this.likes = likes;
+            this.duration = duration;
+        }
+
+        boolean isFresh(Duration ttl) {
+            return System.currentTimeMillis() - fetchedAt < ttl.toMillis();
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.springframework.data.util.Pair;
@@ -18,10 +23,25 @@ import ch.uzh.ifi.hase.soprafs23.game.VideoData;
 //todo Or getting rid of search call. 1000 games per day
 
 public class YTAPIManager {
+    static final int DEFAULT_VIDEOS_PER_HARVEST = 8;
+    static final List<RoundSourceType> DEFAULT_ROUND_SOURCES = List.of(RoundSourceType.CACHE,
+            RoundSourceType.PLAYLIST);
+
     private String query = "LoFi HipHop";
     private String playlistId = "PL6HF94r1ogByYa2xFAXIE_1Pw-K0AU_Vd";
     private Language language = Language.GERMAN;
-    private boolean useYouTubeApi = true;
+    private boolean useYouTubeApi = true; //guarded by roundsLock
+    private List<RoundSourceType> roundSources = DEFAULT_ROUND_SOURCES;
+    private RoundSourceChain sourceChain = RoundSourceChain.of(DEFAULT_ROUND_SOURCES); //guarded by roundsLock
+    private CommentHarvester harvester = new CommentHarvester();
+    private Integer minimalViewcount = null;
+    private int videosPerHarvest = DEFAULT_VIDEOS_PER_HARVEST;
+    private int prefetchDepth = RoundPrefetcher.DEFAULT_DEPTH;
+    private RoundPrefetcher prefetcher;
+    private final Object roundsLock = new Object();
+    private final Deque<RoundPack> rounds = new ArrayDeque<>(); //rounds of the last harvest not yet played
+    private final Set<String> playedVideoIds = new HashSet<>();
+    private long roundsGeneration = 0; //increased whenever the rounds are reset
 
     public static boolean checkPlaylistUrl(String Url) throws IllegalStateException, IOException, InterruptedException {
         var listId = urlToPlaylistId(Url);
@@ -35,21 +55,99 @@ public class YTAPIManager {
     
     public void setPlaylist(String URL) throws IllegalStateException {
         playlistId = urlToPlaylistId(URL);
+        resetPrefetcher();
     }
 
     public void setQuery(String query) {
         this.query = query;
+        resetPrefetcher();
     }
 
     public void setLanguage(Language language) {
         this.language = language;
+        resetPrefetcher();
     }
 
-    public void setMinimalViewcount(Integer viewCount) throws IllegalStateException {
-        throw new IllegalStateException("method not implemented yet");
+    //only videos with at least this many views are chosen as the video of a round. null disables the filter
+    public void setMinimalViewcount(Integer viewCount) throws IllegalArgumentException {
+        if (viewCount != null && viewCount < 0) {
+            throw new IllegalArgumentException("The minimal viewcount must not be negative (was " + viewCount + ")");
+        }
+        minimalViewcount = viewCount;
+        resetPrefetcher();
     }
     
-    public Pair<VideoData, List<Hand>> getVideoAndHand() throws IOException, InterruptedException  {
+    public void setHarvestParallelism(int parallelism) throws IllegalArgumentException {
+        harvester = new CommentHarvester(parallelism, harvester.getVideoDeadline());
+    }
+
+    public void setHarvestDeadline(Duration deadlinePerVideo) throws IllegalArgumentException {
+        harvester = new CommentHarvester(harvester.getParallelism(), deadlinePerVideo);
+    }
+
+    //a harvest reads the playlist only until this many qualifying videos are found, one round per video
+    public void setVideosPerHarvest(int videos) throws IllegalArgumentException {
+        if (videos < CommentHarvester.MIN_VIDEOS) {
+            throw new IllegalArgumentException(
+                    "At least " + CommentHarvester.MIN_VIDEOS + " videos per harvest are needed (was " + videos + ")");
+        }
+        videosPerHarvest = videos;
+        resetPrefetcher();
+    }
+
+    //where the rounds of this game come from, e.g. CACHE, QUERY to play the query instead of the playlist. The sources
+    //are tried cheapest first (see RoundSourceChain)
+    public void setRoundSources(List<RoundSourceType> sources) throws IllegalArgumentException {
+        var chain = RoundSourceChain.of(sources);
+        synchronized (roundsLock) {
+            roundSources = List.copyOf(sources);
+            if (useYouTubeApi) {
+                sourceChain = chain;
+            }
+        }
+        resetPrefetcher();
+    }
+
+    //number of rounds which are prepared in the background while a round is played. 0 disables prefetching
+    public void setPrefetchDepth(int depth) throws IllegalArgumentException {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Prefetch depth must not be negative (was " + depth + ")");
+        }
+        prefetchDepth = depth;
+        resetPrefetcher();
+    }
+
+    //the first call fetches the data of this round and starts preparing the next rounds in the background,
+    //later calls take the prepared rounds
+    public Pair<VideoData, List<Hand>> getVideoAndHand() throws IOException, InterruptedException {
+        RoundPrefetcher p;
+        synchronized (this) {
+            if (prefetcher == null) {
+                prefetcher = new RoundPrefetcher(this::loadVideoAndHand, prefetchDepth);
+            }
+            p = prefetcher;
+        }
+        return p.take();
+    }
+
+    //cancels all rounds which are still being prepared
+    public synchronized void close() {
+        if (prefetcher != null) {
+            prefetcher.close();
+            prefetcher = null;
+        }
+    }
+
+    private void resetPrefetcher() { //prepared rounds are outdated after a setting changed
+        close();
+        synchronized (roundsLock) {
+            rounds.clear();
+            playedVideoIds.clear();
+            roundsGeneration++;
+        }
+    }
+
+    private Pair<VideoData, List<Hand>> loadVideoAndHand() throws IOException, InterruptedException {
         boolean isDebug = java.lang.management.ManagementFactory.getRuntimeMXBean().getInputArguments().toString()
                 .indexOf("jdwp") >= 0;
 
@@ -62,10 +160,69 @@ public class YTAPIManager {
 
         if (fastDebug && isDebug) {
             return emptyVideoAndHand();
-        } else if (!useYouTubeApi) {//gson is really slow in debug mode
-            return APIController.readFromFile("src/main/resources/GameData1.txt"); //reads local file
-        } else {//standard uses YT API
-            return APIController.getGameDataByPlaylist(playlistId, language);
+        } else {//standard uses the round sources of this game, without YT API only the offline corpus
+            try {
+                return nextRound().toPair();
+            } catch (RuntimeException e) {
+                if (!EndpointGuard.isAnyOpen()) {
+                    throw e;
+                }
+                //YouTube is down and there was not enough cached data, the lobby still gets a round
+                System.out.println("YouTube is not reachable, using the offline rounds: " + e);
+                return CorpusRoundSource.INSTANCE.load(harvestSettings()).get(0).toPair();
+            }
+        }
+    }
+
+    //takes the next round of the current harvest. A new harvest is only needed once every round of the last one
+    //was played. Videos this game already played are skipped, unless the sources have nothing else to offer.
+    private RoundPack nextRound() throws IOException, InterruptedException {
+        while (true) {
+            long generation;
+            HarvestSettings settings;
+            RoundSourceChain chain;
+            Integer minViews;
+            synchronized (roundsLock) {
+                var pack = rounds.poll();
+                if (pack != null) {
+                    playedVideoIds.add(pack.videoId);
+                    return pack;
+                }
+                generation = roundsGeneration;
+                settings = harvestSettings();
+                chain = sourceChain;
+                minViews = minimalViewcount;
+            }
+            //loaded without holding the lock, so changing a setting does not wait for YouTube
+            var harvest = chain.load(settings);
+            List<RoundPack> candidates = new ArrayList<>();
+            for (var pack : harvest) { //the stats came with the harvest, filtering costs no calls
+                if (minViews == null || (pack.videoData.views != null && pack.videoData.views >= minViews)) {
+                    candidates.add(pack);
+                }
+            }
+            if (candidates.isEmpty()) {
+                throw new IllegalStateException("No video of this game has at least " + minViews + " views");
+            }
+            synchronized (roundsLock) {
+                if (generation == roundsGeneration && rounds.isEmpty()) { //else the settings changed meanwhile
+                    for (var pack : candidates) {
+                        if (!playedVideoIds.contains(pack.videoId)) {
+                            rounds.add(pack);
+                        }
+                    }
+                    if (rounds.isEmpty()) { //every video was played already, start over
+                        playedVideoIds.clear();
+                        rounds.addAll(candidates);
+                    }
+                }
+            }
+        }
+    }
+
+    private HarvestSettings harvestSettings() {
+        synchronized (roundsLock) {
+            return new HarvestSettings(playlistId, query, language, harvester, videosPerHarvest);
         }
     }
 
@@ -92,6 +249,10 @@ public class YTAPIManager {
     }
     
     public void useYtApi(boolean use){
-        useYouTubeApi = use;
+        synchronized (roundsLock) {
+            useYouTubeApi = use;
+            sourceChain = RoundSourceChain.of(use ? roundSources : List.of(RoundSourceType.CORPUS));
+        }
+        resetPrefetcher();
     }
 }
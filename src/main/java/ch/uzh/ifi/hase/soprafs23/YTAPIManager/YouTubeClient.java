@@ -0,0 +1,62 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+//One HttpClient for all calls to the YT API. The client keeps its connections open, so the calls of a round
+//share one TLS connection (HTTP/2 multiplexes them) instead of opening a new client with new threads for every call.
+class YouTubeClient {
+    static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    static final int MAX_THREADS = 8;
+
+    private static final YouTubeClient INSTANCE = new YouTubeClient();
+
+    private final HttpClient client;
+    private final ExecutorService executor;
+
+    private YouTubeClient() {
+        executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new DaemonThreadFactory("yt-http"));
+        ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+
+    static YouTubeClient getInstance() {
+        return INSTANCE;
+    }
+
+    //conditional request, if the data still has this etag YouTube answers with an empty 304
+    CompletableFuture<HttpResponse<String>> getAsync(String url, String etag) {
+        return getAsync(url, etag, REQUEST_TIMEOUT);
+    }
+
+    CompletableFuture<HttpResponse<String>> getAsync(String url, String etag, Duration timeout) {
+        HttpRequest.Builder builder = requestBuilder(url, timeout);
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        return client.sendAsync(builder.build(), BodyHandlers.ofString());
+    }
+
+    private static HttpRequest.Builder requestBuilder(String url, Duration timeout) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header("accept", "application/json");
+    }
+}
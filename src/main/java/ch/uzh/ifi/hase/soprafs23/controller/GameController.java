@@ -36,6 +36,7 @@ public class GameController {
     SimpMessagingTemplate messagingTemplate;
 
     private final GameService gameService;
+    private final GameOutbox outbox = new GameOutbox(); //the updates of the games are sent from here
 
     GameController() {
         this.gameService = new GameService(this);
@@ -138,7 +139,7 @@ public class GameController {
     }
 
     public void sendSettingsToClient(String gameId, SettingsWsDTO settings) {
-        messagingTemplate.convertAndSend("/topic/games/"+gameId+"/settings", settings);
+        outbox.send(gameId, () -> messagingTemplate.convertAndSend("/topic/games/"+gameId+"/settings", settings));
     }
 
     @MessageMapping("/games/{gameId}/start")
@@ -194,7 +195,8 @@ public class GameController {
     public void closeGame(@DestinationVariable String gameId) {
         try {
             gameService.closeGame(gameId);
-            messagingTemplate.convertAndSend("/topic/games/" + gameId + "/close", "Game closed");
+            outbox.send(gameId, () -> messagingTemplate.convertAndSend("/topic/games/" + gameId + "/close", "Game closed"));
+            outbox.close(gameId);
         } catch (ResponseStatusException e) {
             messagingTemplate.convertAndSend("/topic/games/" + gameId + "/error",
                     new Exception(e.getMessage(), e.getCause()));
@@ -204,18 +206,29 @@ public class GameController {
     }
 
     /** OBSERVER ENDPOINT METHODS
-     * these methods are invoked by gameService to send data to the FE*/
-    public synchronized void gameStateChanged(String gameId, GameStateWsDTO gameStateWsDTO) {
+     * these methods are invoked by gameService to send data to the FE.
+     * They only queue the update in the outbox of the game (in order) and return, serializing and sending happens on
+     * the dispatcher threads. Mutable DTOs are copied first, the game goes on changing them meanwhile.*/
+    public void gameStateChanged(String gameId, GameStateWsDTO gameStateWsDTO) {
         String destination = String.format("/topic/games/%s/state", gameId);
-        messagingTemplate.convertAndSend(destination, gameStateWsDTO);
+        var state = copyOf(gameStateWsDTO);
+        outbox.send(gameId, () -> messagingTemplate.convertAndSend(destination, state));
     }
 
-    public synchronized void playerStateChanged(String gameId, Collection<PlayerWsDTO> playersDTOList) {
+    public void playerStateChanged(String gameId, Collection<PlayerWsDTO> playersDTOList) {
         String destination = String.format("/topic/games/%s/players", gameId);
-        messagingTemplate.convertAndSend(destination, playersDTOList);
+        Collection<PlayerWsDTO> players = new ArrayList<>(playersDTOList.size());
+        for (PlayerWsDTO p : playersDTOList) {
+            players.add(copyOf(p));
+        }
+        outbox.send(gameId, () -> messagingTemplate.convertAndSend(destination, players));
     }
 
     public void showdown(String gameId, Collection<HandOwnerWinner> handOwnerWinners) {
+        outbox.send(gameId, () -> sendShowdown(gameId, handOwnerWinners));
+    }
+
+    private void sendShowdown(String gameId, Collection<HandOwnerWinner> handOwnerWinners) {
         String destination = String.format("/topic/games/%s/showdown", gameId);
         ObjectMapper objectMapper = new ObjectMapper();
         String responseBody;
@@ -233,6 +246,10 @@ public class GameController {
     }
 
     public void newHand(String gameId, String player, Hand hand) {
+        outbox.send(gameId, () -> sendHand(gameId, player, hand));
+    }
+
+    private void sendHand(String gameId, String player, Hand hand) {
         String destination = String.format("/topic/games/%s/players/%s/hand", gameId, player);
         ObjectMapper objectMapper = new ObjectMapper();
         String responseBody;
@@ -248,7 +265,19 @@ public class GameController {
 
     public void newVideoData(String gameId, VideoDataWsDTO videoData) {
         String destination = String.format("/topic/games/%s/video", gameId);
-        messagingTemplate.convertAndSend(destination, videoData);
+        outbox.send(gameId, () -> messagingTemplate.convertAndSend(destination, videoData));
+    }
+
+    private static GameStateWsDTO copyOf(GameStateWsDTO s) {
+        return new GameStateWsDTO(s.getCurrentBet(), s.getCurrentPot(), s.isHasStarted(), s.getRoundWinnerToken(),
+                s.getGamePhase());
+    }
+
+    private static PlayerWsDTO copyOf(PlayerWsDTO p) {
+        var copy = new PlayerWsDTO(p.getToken(), p.getUsername(), p.getScore(), p.getLastDecision(), p.isBigBlind(),
+                p.isSmallBlind(), p.isCurrentPlayer());
+        copy.setScorePlayerPutIntoPot(p.getScorePutIntoPot());
+        return copy;
     }
 
     @MessageMapping("/echo")
@@ -0,0 +1,108 @@
+package ch.uzh.ifi.hase.soprafs23.controller;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Sends the updates of the games off the threads running the games. Every game has its own queue, so the updates of
+//one game go out in the order they were made, and a small pool of dispatcher threads works off the queues of all
+//games. Serializing the frames and handing them to the broker happens on the dispatchers, so a game command does not
+//wait for the network and one slow game does not hold up the others.
+//A closed game is remembered (the last MAX_CLOSED of them), sends for it are dropped instead of starting a new queue.
+class GameOutbox {
+    static final int DISPATCHERS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    static final int MAX_BATCH = 32; //sends in a row for one game before the other games get a dispatcher again
+    static final int MAX_CLOSED = 1024; //late sends come right after the close, older games need not be remembered
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService SHARED_DISPATCHERS = Executors.newFixedThreadPool(DISPATCHERS, r -> {
+        Thread t = new Thread(r, "game-outbox-" + THREAD_COUNT.incrementAndGet());
+        t.setDaemon(true); //must not keep the application alive
+        return t;
+    });
+
+    private final ExecutorService dispatchers;
+    private final Map<String, GameQueue> queues = new ConcurrentHashMap<>();
+    private final Set<String> closed = Collections.newSetFromMap(Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) { //insertion order -> the games closed first are forgotten first
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_CLOSED;
+                }
+            }));
+
+    GameOutbox() {
+        this(SHARED_DISPATCHERS);
+    }
+
+    GameOutbox(ExecutorService dispatchers) {
+        this.dispatchers = dispatchers;
+    }
+
+    //queues the send behind the earlier sends of this game and returns right away. Sends for a closed game are dropped.
+    void send(String gameId, Runnable send) {
+        queues.compute(gameId, (id, queue) -> { //atomic with close
+            if (closed.contains(id)) {
+                return queue;
+            }
+            var q = queue != null ? queue : new GameQueue();
+            q.add(send);
+            return q;
+        });
+    }
+
+    //the sends queued so far still go out, then the queue of the game is dropped. Later sends are dropped.
+    void close(String gameId) {
+        queues.compute(gameId, (id, queue) -> {
+            closed.add(id);
+            if (queue != null) {
+                queue.add(() -> queues.remove(id, queue));
+            }
+            return queue;
+        });
+    }
+
+    int getQueueCount() {
+        return queues.size();
+    }
+
+    private class GameQueue {
+        private final Queue<Runnable> sends = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false); //at most one dispatcher per game
+
+        void add(Runnable send) {
+            sends.add(send);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!sends.isEmpty() && scheduled.compareAndSet(false, true)) {
+                dispatchers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Runnable next;
+                for (int i = 0; i < MAX_BATCH && (next = sends.poll()) != null; i++) {
+                    try {
+                        next.run();
+                    } catch (RuntimeException e) {
+                        System.out.println("Sending a game update did not work: " + e);
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+                schedule(); //sends which are left or were queued while this dispatcher was about to stop
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@ import java.util.List;
 //game.setup.setSmallBlindAmount(10);
 //...
 //game.setup.video.setQuery("LoFi HipHop");
+//game.setup.video.setRoundSources(List.of(RoundSourceType.CACHE, RoundSourceType.QUERY)); //play the query
 //...
 //game.startGame(); //note after the game is started no changes to the setup are allowed
 //
@@ -27,8 +28,9 @@ import java.util.List;
 public class Game {
 
     private GameModel gameModel;
-    public Setup setup;
+    public volatile Setup setup; //replaced by the mailbox when the game starts
     private GameLogic gameLogic;
+    private final GameMailbox mailbox = new GameMailbox(); //every command of this game runs through it
 
 
     public Game(Player host) {
@@ -44,43 +46,70 @@ public class Game {
         gameLogic = new GameLogic(gameModel, setup);
     }
 
-    public synchronized void startGame() throws IOException, InterruptedException{ //this ends the setup phase. No changes to setup are possible
-        gameLogic.startGame();
-        setup = new SetupClosed();
+    //runs a command which changes the game. Afterwards the observers get changesCommitted, also if the command failed
+    private void command(GameMailbox.Command<Void> command) throws IOException, InterruptedException {
+        mailbox.call(() -> {
+            try {
+                return command.run();
+            } finally {
+                gameModel.commit();
+            }
+        });
+    }
+
+    private void command(Runnable command) {
+        mailbox.run(() -> {
+            try {
+                command.run();
+            } finally {
+                gameModel.commit();
+            }
+        });
+    }
+
+    public void startGame() throws IOException, InterruptedException{ //this ends the setup phase. No changes to setup are possible
+        command(() -> {
+            gameLogic.startGame();
+            setup = new SetupClosed();
+            return null;
+        });
     }
     
-    public synchronized void startBettingRound() { //this is not needed at the current state but would start the betting round
-        gameLogic.startBettingRound();
+    public void startBettingRound() { //this is not needed at the current state but would start the betting round
+        command(() -> gameLogic.startBettingRound());
     }
 
     public void call(Player player) throws IllegalStateException {
-        gameLogic.playerDecision(player, Decision.CALL);
+        command(() -> gameLogic.playerDecision(player, Decision.CALL));
     }
     public void call(String playerId) throws IllegalStateException{ //this should be called of player player decides to call
-        gameLogic.playerDecision(new Player("", playerId), Decision.CALL);
+        call(new Player("", playerId));
     }
 
     
     public void raise(Player player, Integer amount) throws IllegalStateException {
-        gameLogic.playerDecision(player, Decision.RAISE, amount);
+        command(() -> gameLogic.playerDecision(player, Decision.RAISE, amount));
     }
     public void raise(String playerId, int newCallAmount) throws IllegalStateException{ //this should be called of player player decides to raise
-        gameLogic.playerDecision(new Player("", playerId), Decision.RAISE, newCallAmount);
+        raise(new Player("", playerId), newCallAmount);
     }
 
     public void fold(Player player) throws IllegalStateException {
-        gameLogic.playerDecision(player, Decision.FOLD);
+        command(() -> gameLogic.playerDecision(player, Decision.FOLD));
     }
     public void fold(String playerId) throws IllegalStateException { //this should be called of player player decides to fold
-        gameLogic.playerDecision(new Player("", playerId), Decision.FOLD);
+        fold(new Player("", playerId));
     }
 
-    public synchronized void nextRound() throws IOException, InterruptedException { // this should be called after a round to play a second round
-        gameLogic.nextRound();
+    public void nextRound() throws IOException, InterruptedException { // this should be called after a round to play a second round
+        command(() -> {
+            gameLogic.nextRound();
+            return null;
+        });
     }
 
-    public synchronized void addObserver(GameObserver o) { //adding game observer. Game observer are classes which implement GameObserver most of the data traffic happens there
-        gameModel.addObserver(o);
+    public void addObserver(GameObserver o) { //adding game observer. Game observer are classes which implement GameObserver most of the data traffic happens there
+        mailbox.run(() -> gameModel.addObserver(o));
     }
 
     public String getGameId() { // to get the game uuid
@@ -89,30 +118,44 @@ public class Game {
     }
 
     public Player getHost() {
-        return gameModel.getHost();
+        return mailbox.get(() -> gameModel.getHost());
     }
 
     public List<HandOwnerWinner> getHands() throws IllegalStateException{
-        return gameModel.getHands();
+        return mailbox.get(() -> gameModel.getHands());
     }
 
     public List<Player> getPlayers() { //to get all the players which are currently in the game. Not working during setup!!
-        List<Player> l = new ArrayList<>();
-        for (PlayerData pd : gameModel.getPlayerDataCollection()) {
-            l.add(pd.getPlayer()); //convert PlayerData to Player
-        }
-        return l;
+        return mailbox.get(() -> {
+            List<Player> l = new ArrayList<>();
+            for (PlayerData pd : gameModel.getPlayerDataCollection()) {
+                l.add(pd.getPlayer()); //convert PlayerData to Player
+            }
+            return l;
+        });
     }
 
     public GamePhase getGamePhase() {
-        return gameModel.getGamePhase();
+        return mailbox.get(() -> gameModel.getGamePhase());
+    }
+
+    public List<GameEvent> getEvents() { //everything which happened in this game so far, e.g. to replay it for a bug report
+        return mailbox.get(() -> gameModel.getEvents());
+    }
+
+    public List<GameEvent> getEventsSince(long sequence) { //the events after the event with this sequence number
+        return mailbox.get(() -> gameModel.getEventsSince(sequence));
     }
 
     public void closeGame() {
-        gameModel.closeGame();
-        this.gameModel = null;
-        this.gameLogic = null;
-        this.setup = null;
+        mailbox.run(() -> {
+            gameLogic.closeGame();
+            gameModel.closeGame();
+            gameModel.commit();
+            this.gameModel = null;
+            this.gameLogic = null;
+            this.setup = null;
+        });
     }
 
 
@@ -131,7 +174,7 @@ public class Game {
 
 
     public void leave(Player player) {
-        gameLogic.leaveGame(player);
+        command(() -> gameLogic.leaveGame(player));
     }
     
     
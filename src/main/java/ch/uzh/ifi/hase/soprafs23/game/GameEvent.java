@@ -0,0 +1,286 @@
+package ch.uzh.ifi.hase.soprafs23.game;
+
+import java.util.List;
+
+import ch.uzh.ifi.hase.soprafs23.entity.Player;
+
+//Something which happened in a game. GameLogic checks a command and decides what happens, the GameModel is only
+//changed by applying the resulting events (see GameModel.apply). Everything random (dealer, hands, video) is part of
+//the events, so applying the events of a game to a new GameModel plays the same game again.
+//The fields are final. The sequence number is given once, when the event is appended to the GameEventLog.
+public abstract class GameEvent {
+    private long sequence = 0; //0 = not in a log yet, the first event of a game has 1
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        if (this.sequence != 0 && this.sequence != sequence) {
+            throw new IllegalStateException("Event " + this + " already has sequence number " + this.sequence);
+        }
+        this.sequence = sequence;
+    }
+
+    abstract void applyTo(GameModel gm); //calls the matching GameModel.on
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + getClass().getSimpleName();
+    }
+
+    public static final class GameStarted extends GameEvent {
+        private final boolean infoFirstRound;
+
+        GameStarted(boolean infoFirstRound) {
+            this.infoFirstRound = infoFirstRound;
+        }
+
+        public boolean isInfoFirstRound() {
+            return infoFirstRound;
+        }
+
+        @Override
+        void applyTo(GameModel gm) {
+            gm.on(this);
+        }
+    }
+
+    public static final class PlayerSeated extends GameEvent {
+        private final Player player;
+        private final int score;
+
+        PlayerSeated(Player player, int score) {
+            this.player = player;
+            this.score = score;
+        }
+
+        public Player getPlayer() {
+            return player;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        @Override
+        void applyTo(GameModel gm) {
+            gm.on(this);
+        }
+
+        @Override
+        public String toString() {
+            return super.toString() + " " + player.getName() + " score=" + score;
+        }
+    }
+
+    public static final class PlayerLeft extends GameEvent {
+        private final int seat;
+        private final int forfeited; //score going into the pot, 0 if no round is running
+
+        PlayerLeft(int seat, int forfeited) {
+            this.seat = seat;
+            this.forfeited = forfeited;
+        }
+
+        public int getSeat() {
+            return seat;
+        }
+
+        public int getForfeited() {
+            return forfeited;
+        }
+
+        @Override
+        void applyTo(GameModel gm) {
+            gm.on(this);
+        }
+
+        @Override
+        public String toString() {
+            return super.toString() + " seat=" + seat + " forfeited=" + forfeited;
+        }
+    }
+
+    public static final class RoundDealt extends GameEvent {
+        private final VideoData videoData;
+        private final List<Hand> hands; //one per seated player, in seat order
+
+        RoundDealt(VideoData videoData, List<Hand> hands) {
+            this.videoData = videoData;
+            this.hands = List.copyOf(hands);
+        }
+
+        public VideoData getVideoData() {
+            return videoData;
+        }
+
+        public List<Hand> getHands() {
+            return hands;
+        }
+
+        @Override
+        void applyTo(GameModel gm) {
+            gm.on(this);
+        }
+
+        @Override
+        public String toString() {
+            return super.toString() + " hands=" + hands.size();
+        }
+    }
+
+    public static final class DealerMoved extends GameEvent {
+        private final int seat;
+
+        DealerMoved(int seat) {
+            this.seat = seat;
+        }
+
+        public int getSeat() {
+            return seat;
+        }
+
+        @Override
+        void applyTo(GameModel gm) {
+            gm.on(this);
+        }
+
+        @Override
+        public String toString() {
+            return super.toString() + " seat=" + seat;
+        }
+    }
+
+    public static final class BettingRoundStarted extends GameEvent {
+
+        @Override
+        void applyTo(GameModel gm) {
+            gm.on(this);
+        }
+    }
+
+    public static final class BlindPosted extends GameEvent {
+        private final int seat;
+        private final int amount;
+        private final boolean bigBlind; //after the big blind the player next to it has to decide
+
+        BlindPosted(int seat, int amount, boolean bigBlind) {
+            this.seat = seat;
+            this.amount = amount;
+            this.bigBlind = bigBlind;
+        }
+
+        public int getSeat() {
+            return seat;
+        }
+
+        public int getAmount() {
+            return amount;
+        }
+
+        public boolean isBigBlind() {
+            return bigBlind;
+        }
+
+        @Override
+        void applyTo(GameModel gm) {
+            gm.on(this);
+        }
+
+        @Override
+        public String toString() {
+            return super.toString() + " seat=" + seat + (bigBlind ? " big " : " small ") + amount;
+        }
+    }
+
+    public static final class DecisionMade extends GameEvent {
+        private final int seat;
+        private final Decision decision;
+        private final int callAmount; //the call amount after the decision
+
+        DecisionMade(int seat, Decision decision, int callAmount) {
+            this.seat = seat;
+            this.decision = decision;
+            this.callAmount = callAmount;
+        }
+
+        public int getSeat() {
+            return seat;
+        }
+
+        public Decision getDecision() {
+            return decision;
+        }
+
+        public int getCallAmount() {
+            return callAmount;
+        }
+
+        @Override
+        void applyTo(GameModel gm) {
+            gm.on(this);
+        }
+
+        @Override
+        public String toString() {
+            return super.toString() + " seat=" + seat + " " + decision + " " + callAmount;
+        }
+    }
+
+    public static final class PhaseAdvanced extends GameEvent {
+        private final GamePhase phase;
+
+        PhaseAdvanced(GamePhase phase) {
+            this.phase = phase;
+        }
+
+        public GamePhase getPhase() {
+            return phase;
+        }
+
+        @Override
+        void applyTo(GameModel gm) {
+            gm.on(this);
+        }
+
+        @Override
+        public String toString() {
+            return super.toString() + " " + phase;
+        }
+    }
+
+    public static final class PotAwarded extends GameEvent {
+        private final int seat;
+        private final int amount;
+        private final GamePhase phase; //the end phase the round is in afterwards
+
+        PotAwarded(int seat, int amount, GamePhase phase) {
+            this.seat = seat;
+            this.amount = amount;
+            this.phase = phase;
+        }
+
+        public int getSeat() {
+            return seat;
+        }
+
+        public int getAmount() {
+            return amount;
+        }
+
+        public GamePhase getPhase() {
+            return phase;
+        }
+
+        @Override
+        void applyTo(GameModel gm) {
+            gm.on(this);
+        }
+
+        @Override
+        public String toString() {
+            return super.toString() + " seat=" + seat + " amount=" + amount + " " + phase;
+        }
+    }
+}
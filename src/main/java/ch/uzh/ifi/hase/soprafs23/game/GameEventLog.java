@@ -0,0 +1,46 @@
+package ch.uzh.ifi.hase.soprafs23.game;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+//The events of one game in the order they happened. Events are only appended, never changed or removed, so a
+//snapshot is the array and the length at that moment and costs nothing to take: later appends only write behind the
+//snapshot or into a new array. Only used from the GameMailbox of the game.
+class GameEventLog {
+    private GameEvent[] events = new GameEvent[64];
+    private int size = 0;
+
+    //an event from another log (replay) must already have the next sequence number
+    void checkNext(GameEvent e) {
+        if (e.getSequence() != 0 && e.getSequence() != size + 1L) {
+            throw new IllegalArgumentException("Expected event " + (size + 1L) + " but got " + e);
+        }
+    }
+
+    //gives the event the next sequence number
+    long append(GameEvent e) {
+        checkNext(e);
+        long sequence = size + 1L;
+        if (size == events.length) {
+            events = Arrays.copyOf(events, size * 2);
+        }
+        e.setSequence(sequence);
+        events[size++] = e;
+        return sequence;
+    }
+
+    long getLastSequence() {
+        return size;
+    }
+
+    List<GameEvent> snapshot() {
+        return since(0);
+    }
+
+    //all events with a sequence number higher than `sequence`
+    List<GameEvent> since(long sequence) {
+        int from = (int) Math.max(0, Math.min(sequence, size));
+        return Collections.unmodifiableList(Arrays.asList(events).subList(from, size));
+    }
+}
@@ -2,32 +2,32 @@ package ch.uzh.ifi.hase.soprafs23.game;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.List;
 
 import org.springframework.data.util.Pair;
 import ch.uzh.ifi.hase.soprafs23.entity.Player;
 
 //todo testing :)
 
+//only called from the GameMailbox of the game, so there are no locks here
+//Checks the commands and decides what happens. The outcome is applied to the GameModel as GameEvents, GameLogic
+//itself never changes the model.
 class GameLogic {
     
-    private Random rand = new Random();
+    private final HandDealer dealer;
     private GameModel gm;
     private Setup sd;
 
     GameLogic(GameModel gm, Setup sd) {
         this.gm = gm;
         this.sd = sd;
+        this.dealer = HandDealer.create(gm.getGameId()); //the rounds of a game are dealt one after the other
     }
 
     void startGame() throws IOException, InterruptedException {//Creating playerData and stuff
-        gm.setInfoFirstRound(sd.isInfoFirstRound());
+        gm.apply(new GameEvent.GameStarted(sd.isInfoFirstRound()));
         for (Pair<Player, Integer> pair : sd.getPlayers()) {
-            var playerData = new PlayerData(pair.getFirst());
-            gm.addPlayerData(playerData);
-
-            playerData.setScore(pair.getSecond());
-            playerData.setDecision(Decision.NOT_DECIDED);
+            gm.apply(new GameEvent.PlayerSeated(pair.getFirst(), pair.getSecond()));
         }
 
         setupRound();
@@ -36,31 +36,33 @@ class GameLogic {
     void nextRound() throws IOException, InterruptedException {
         setupRound();
     }
+
+    void closeGame() {
+        if (sd.video != null) {
+            sd.video.close();
+        }
+    }
     
     private void setupRound() throws IllegalStateException, IOException, InterruptedException {//set hands small and big blinds after this the Round
         Pair<VideoData, java.util.List<Hand>> ytData = sd.getYTData();
 
-        gm.setVideoData(ytData.getFirst());
+        var deck = dealer.deck(ytData.getSecond());
 
         for (PlayerData playerData : new ArrayList<>(gm.getPlayerDataCollection())) {
-            synchronized (playerData) {
-                playerData.setDecision(Decision.NOT_DECIDED);
-                if (playerData.getScore() < sd.getBigBlindAmount()) {//player is not allowed to play since he has not enough points
-                    leaveGame(playerData);
-                }
-                Hand hand = ytData.getSecond().get(rand.nextInt(ytData.getSecond().size()));
-                ytData.getSecond().remove(hand);
-                playerData.setNewHand(hand);
-                playerData.setScorePutIntoPot(0);
+            if (playerData.getScore() < sd.getBigBlindAmount()) {//player is not allowed to play since he has not enough points
+                leaveGame(playerData);
             }
         }
+        List<Hand> hands = new ArrayList<>();
+        for (int i = gm.getSeatedCount(); i > 0; i--) {
+            hands.add(deck.next());
+        }
+        gm.apply(new GameEvent.RoundDealt(ytData.getFirst(), hands));
 
-        gm.resetTable();
-
-        if (gm.getDealerPlayer().getToken() == null) {
-            gm.setDealerPlayer();
+        if (gm.getDealerSeat() == GameModel.NO_SEAT) {
+            gm.apply(new GameEvent.DealerMoved(gm.getNthSeat(dealer.nextInt(gm.getSeatedCount()))));
         } else {
-            gm.nextDealer();
+            gm.apply(new GameEvent.DealerMoved(gm.getNextSeatedAfter(gm.getDealerSeat())));
         }
 
         startBettingRound();
@@ -68,18 +70,13 @@ class GameLogic {
     }
 
     void startBettingRound() {
-        for (PlayerData pd : gm.getPlayerDataCollection()) {
-            if (pd.getDecision() != Decision.FOLD) {
-                pd.setDecision(Decision.NOT_DECIDED);
-            }
-        }
-        gm.resetBettingRound();
+        gm.apply(new GameEvent.BettingRoundStarted());
     }
 
-    synchronized void playerDecision(Player player, Decision d) throws IllegalStateException {
+    void playerDecision(Player player, Decision d) throws IllegalStateException {
         playerDecision(player, d, gm.getCallAmount());
     }
-    synchronized void playerDecision(Player player, Decision d, Integer newCallAmount) throws IllegalStateException {
+    void playerDecision(Player player, Decision d, Integer newCallAmount) throws IllegalStateException {
         if (gm.getGamePhase() == GamePhase.LOBBY || gm.getGamePhase() == GamePhase.END_AFTER_FOURTH_BETTING_ROUND
                 || gm.getGamePhase() == GamePhase.END_ALL_FOLDED) {
             throw new IllegalCallerException("No decisions possible if game is in Lobby or end state");
@@ -92,13 +89,12 @@ class GameLogic {
         }
         enforceBigAndSmallBlind(player, newCallAmount);
 
+        int callAmount = gm.getCallAmount();
         switch (d) {
             case CALL:
-                addToPot(player);
+                checkCanPay(gm.getPlayerData(player), callAmount);
                 break;
             case FOLD:
-                gm.setFoldCount(gm.getFoldCount() + 1);
-                gm.getPlayerData(player).setDecision(Decision.FOLD);
                 break;
 
             case RAISE:
@@ -117,16 +113,14 @@ class GameLogic {
                                 + pdata.getPlayer().getName() + " has enough points to follow.");
                     }
                 }
-                gm.setCallAmount(newCallAmount);
-                addToPot(player);
-                gm.setLastRaisingPlayer(player);
+                callAmount = newCallAmount;
+                checkCanPay(playerData, callAmount);
 
                 break;
             default:
                 throw new IllegalStateException("Illegal decision " + d);
         }
-        gm.getPlayerData(player).setDecision(d);
-        gm.nextPlayer();
+        gm.apply(new GameEvent.DecisionMade(gm.seatOf(player), d, callAmount));
         
         if (allFoldedButOne()) {
             winOtherFolded();
@@ -136,14 +130,13 @@ class GameLogic {
     }
 
     void winOtherFolded() throws IllegalStateException {
-        gm.setGamePhase(GamePhase.END_ALL_FOLDED);
-        Player winner = null;
+        PlayerData winner = null;
         for (PlayerData pd : gm.getPlayerDataCollection()) {
             if (pd.getDecision() != Decision.FOLD) {
                 if (winner != null) {
                     throw new IllegalStateException("There can not be two winner");
                 }
-                winner = pd.getPlayer();
+                winner = pd;
             }
         }
 
@@ -151,18 +144,16 @@ class GameLogic {
             throw new IllegalStateException("There must be a winner");
         }
 
-        gm.setWinner(winner);
-        
+        gm.apply(new GameEvent.PotAwarded(winner.seat, gm.getPotAmount(), GamePhase.END_ALL_FOLDED));
     }
     
     void evaluateWinner() throws IllegalStateException {
-        gm.setGamePhase(GamePhase.END_ALL_FOLDED);
-        Player winner = null;
+        PlayerData winner = null;
         int maxCorrect = -1;
         for (PlayerData pd : gm.getPlayerDataCollection()) {
             if (pd.getDecision() != Decision.FOLD && pd.getHand().getCountCorrect() > maxCorrect) {
                 maxCorrect = pd.getHand().getCountCorrect();
-                winner = pd.getPlayer();
+                winner = pd;
             }
         }
 
@@ -170,32 +161,24 @@ class GameLogic {
             throw new IllegalStateException("There must be a winner");
         }
 
-        gm.setGamePhase(GamePhase.END_AFTER_FOURTH_BETTING_ROUND);
-        gm.setWinner(winner);
+        gm.apply(new GameEvent.PotAwarded(winner.seat, gm.getPotAmount(), GamePhase.END_AFTER_FOURTH_BETTING_ROUND));
     }
     
     void endOfBettingRound() throws IllegalStateException {
         if (gm.getGamePhase() == GamePhase.FOURTH_BETTING_ROUND) {
             evaluateWinner();
         } else {
-            gm.setGamePhase(gm.getGamePhase().nextPhase());
+            gm.apply(new GameEvent.PhaseAdvanced(gm.getGamePhase().nextPhase()));
             startBettingRound();
         }
     }
     
 
-    void addToPot(Player player) throws IllegalStateException {
-        
-
-        var playerData = gm.getPlayerData(player);
-        if (playerData.getScore() + playerData.getScorePutIntoPot() < gm.getCallAmount()) {
+    void checkCanPay(PlayerData playerData, int callAmount) throws IllegalStateException {
+        if (playerData.getScore() + playerData.getScorePutIntoPot() < callAmount) {
             throw new IllegalStateException(
-                    player + " not enough score(" + playerData.getScore() + ") to call(" + gm.getCallAmount() + ")");
+                    playerData.getPlayer() + " not enough score(" + playerData.getScore() + ") to call(" + callAmount + ")");
         }
-
-        playerData.setScore(playerData.getScore() - (gm.getCallAmount() - playerData.getScorePutIntoPot()));
-        gm.setPotAmount(gm.getPotAmount() + (gm.getCallAmount() - playerData.getScorePutIntoPot()));
-        playerData.setScorePutIntoPot(gm.getCallAmount());
     }
 
     boolean isSmallBlind(Player player) {
@@ -220,20 +203,16 @@ class GameLogic {
     }
     
     void paySmallNBigBlind() {
-        gm.setCallAmount(sd.getSmallBlindAmount());
-        addToPot(gm.getSmallBlindPlayer());
-        gm.setCallAmount(sd.getBigBlindAmount());
-        addToPot(gm.getBigBlindPlayer());
-        gm.setCurrentPlayer(gm.getBigBlindPlayer());
-        gm.nextPlayer();
-        gm.setLastRaisingPlayer(gm.getCurrentPlayer());
+        var smallBlind = gm.getPlayerData(gm.getSmallBlindPlayer());
+        checkCanPay(smallBlind, sd.getSmallBlindAmount());
+        gm.apply(new GameEvent.BlindPosted(smallBlind.seat, sd.getSmallBlindAmount(), false));
+        var bigBlind = gm.getPlayerData(gm.getBigBlindPlayer());
+        checkCanPay(bigBlind, sd.getBigBlindAmount());
+        gm.apply(new GameEvent.BlindPosted(bigBlind.seat, sd.getBigBlindAmount(), true));
     }
 
     boolean isBettingRoundOver() {
-        if (gm.getCurrentPlayer().getToken().equals(gm.getLastRaisingPlayer().getToken())) {
-            return true;
-        }
-        return false;
+        return gm.getCurrentSeat() == gm.getLastRaisingSeat();
     }
 
     boolean allFoldedButOne() {
@@ -245,22 +224,18 @@ class GameLogic {
         leaveGame(playerData);
     }
 
-    synchronized void leaveGame(PlayerData playerData) {
+    void leaveGame(PlayerData playerData) {
         switch (gm.getGamePhase()) {
             case LOBBY:
             case END_AFTER_FOURTH_BETTING_ROUND:
             case END_ALL_FOLDED:
-                gm.removePlayerData(playerData);
+                gm.apply(new GameEvent.PlayerLeft(playerData.seat, 0));
                 break;
 
             default:
-                gm.setPotAmount(gm.getPotAmount() + playerData.getScore());
-                if (playerData.getPlayer().compareTo(gm.getCurrentPlayer())) {
-                    gm.nextPlayer();
-                }
                 // playerData.setDecision(Decision.FOLD);
                 // gm.setFoldCount(gm.getFoldCount() + 1);
-                gm.removePlayerData(playerData);
+                gm.apply(new GameEvent.PlayerLeft(playerData.seat, playerData.getScore()));
                 break;
         }
     }
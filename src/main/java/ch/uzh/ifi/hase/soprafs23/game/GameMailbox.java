@@ -0,0 +1,138 @@
+package ch.uzh.ifi.hase.soprafs23.game;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+//Runs the commands of one game one after the other, so GameModel and GameLogic have a single writer and need no
+//locks. There is no thread per game: a caller queues its command and, if no other thread is working on this game
+//right now, works off the queue itself; else it waits until its command ran. A busy game only holds up its own
+//callers, so games scale with the threads serving requests. Calls made from inside a command (an observer asking the
+//game for data) run inline.
+//A working caller stops once its own command ran and hands the queue to the caller of the next command, so a request
+//thread is never held up by the commands of other players that came in after its own.
+class GameMailbox {
+    private final Queue<Task> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean working = new AtomicBoolean(false);
+    private volatile Thread worker; //the thread working off the queue right now
+
+    @FunctionalInterface
+    interface Command<T> {
+        T run() throws IOException, InterruptedException;
+    }
+
+    private static class Task {
+        final Runnable command;
+        final CompletableFuture<Void> ran = new CompletableFuture<>();
+        volatile CompletableFuture<Void> turn = new CompletableFuture<>(); //completed when the caller should work
+
+        Task(Runnable command) {
+            this.command = command;
+        }
+
+        void run() {
+            try {
+                command.run();
+            } finally {
+                ran.complete(null);
+            }
+        }
+    }
+
+    //Runs the command in order and returns its result. Exceptions of the command are thrown to the caller. A caller
+    //interrupted while its command is still queued takes it out of the queue, so it never runs.
+    <T> T call(Command<T> command) throws IOException, InterruptedException {
+        if (Thread.currentThread() == worker) {
+            return command.run();
+        }
+        var result = new CompletableFuture<T>();
+        var task = new Task(() -> {
+            try {
+                result.complete(command.run());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        queue.add(task);
+        while (!task.ran.isDone()) {
+            var turn = new CompletableFuture<Void>();
+            task.turn = turn; //before trying to work, so a worker stopping right now can not miss this caller
+            workOff(task);
+            try {
+                CompletableFuture.anyOf(task.ran, turn).get();
+            } catch (InterruptedException e) {
+                if (queue.remove(task)) {
+                    wakeHead(); //the queue may have been handed to this caller
+                }
+                throw e;
+            } catch (ExecutionException e) { //ran and turn are only ever completed normally
+                throw new IllegalStateException(e);
+            }
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            var cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    //same as call for commands without checked exceptions
+    <T> T get(Supplier<T> command) {
+        try {
+            return call(command::get);
+        } catch (IOException | InterruptedException e) { //the supplier can not throw them
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void run(Runnable command) {
+        get(() -> {
+            command.run();
+            return null;
+        });
+    }
+
+    //Works off the queue until the own task ran, then wakes the caller of the next command, who goes on from there.
+    private void workOff(Task own) {
+        //checking the queue again after letting go of `working` makes sure no command is left behind by a caller
+        //which queued it while the last worker was about to stop
+        while (!queue.isEmpty() && working.compareAndSet(false, true)) {
+            worker = Thread.currentThread();
+            try {
+                Task next;
+                while (!own.ran.isDone() && (next = queue.poll()) != null) {
+                    next.run();
+                }
+            } finally {
+                worker = null;
+                working.set(false);
+            }
+            if (own.ran.isDone()) {
+                wakeHead();
+                return;
+            }
+        }
+    }
+
+    private void wakeHead() { //waking a caller which is not needed is harmless, it only checks the queue again
+        var head = queue.peek();
+        if (head != null) {
+            head.turn.complete(null);
+        }
+    }
+}
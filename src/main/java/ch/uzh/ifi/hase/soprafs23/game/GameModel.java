@@ -2,28 +2,33 @@ package ch.uzh.ifi.hase.soprafs23.game;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
 import java.util.UUID;
 import ch.uzh.ifi.hase.soprafs23.entity.Player;
 
 
+//The state of one game. Only used from the GameMailbox of the game, so nothing here is synchronized.
+//It is only changed by apply(GameEvent): the event goes into the log of the game and then the matching on(...) below
+//changes the state and informs the observers. So the state is a fold over the log, and replay builds it again.
+//The players sit on seats numbered in the order they joined. Which seats are taken and which players folded is kept
+//in two bitsets, so finding the next player, dealer or blind is a few bit operations instead of searching lists.
 class GameModel { //protected (Package Private)
-    //follow this order to enter mutex state.
+    static final int MAX_SEATS = Long.SIZE; //one bit per seat
+    static final int NO_SEAT = -1;
+
     public final String gameId;
-    private final Map<String, PlayerData> playersData; //mutable but address cannot be changed
-    private final List<Player> playerOrder;
-    private Random rand;
+    private final List<PlayerData> seats; //index is the seat. A player who left keeps his seat, but not its bit
+    private long seated = 0; //bit per seat with a player
+    private long folded = 0; //bit per seat whose player folded this round
+    private final GameEventLog log = new GameEventLog();
     private VideoData videoData;
     private GamePhase gamePhase;
 
-    private Player currentPlayer;
-    private Player dealerPlayer;
-    private Player smallBlindPlayer; //automatically set when dealer is set
-    private Player bigBlindPlayer; //automatically set when dealer is set
-    private Player lastRaisingPlayer;
+    private int currentSeat = NO_SEAT;
+    private int dealerSeat = NO_SEAT;
+    private int smallBlindSeat = NO_SEAT; //automatically set when dealer is set
+    private int bigBlindSeat = NO_SEAT; //automatically set when dealer is set
+    private int lastRaisingSeat = NO_SEAT;
     private Player winner;
     private Player host;
 
@@ -34,24 +39,13 @@ class GameModel { //protected (Package Private)
     private List<GameObserver> observers;
     private boolean infoFirstRound = true;
 
-    public void setInfoFirstRound(boolean infoFirstRound) {
-        this.infoFirstRound = infoFirstRound;
-    }
-
     public GameModel() {
         gameId = UUID.randomUUID().toString(); //generates a unique identifier
         gamePhase = GamePhase.LOBBY;
-        playersData = new HashMap<>();
+        seats = new ArrayList<>();
         observers = new ArrayList<>();
-        playerOrder = new ArrayList<>();
-        rand = new Random();
 
         //avoid null pointer exceptions
-        currentPlayer = new Player();
-        dealerPlayer = new Player();
-        smallBlindPlayer = new Player();
-        bigBlindPlayer = new Player();
-        lastRaisingPlayer = new Player();
         winner = new Player();
         host = new Player();
     }
@@ -62,142 +56,306 @@ class GameModel { //protected (Package Private)
         }
     }
 
-    public void resetTable() {//call before playing
-        setCurrentPlayer(new Player());
+    //event stuff------------------------------
+    public long apply(GameEvent e) {
+        log.checkNext(e);
+        e.applyTo(this); //an event which can not be applied does not get into the log
+        return log.append(e);
+    }
+
+    //a new GameModel (without observers) in the state after these events
+    static GameModel replay(List<GameEvent> events) {
+        var gm = new GameModel();
+        for (GameEvent e : events) {
+            gm.apply(e);
+        }
+        return gm;
+    }
+
+    public List<GameEvent> getEvents() {
+        return log.snapshot();
+    }
+
+    public List<GameEvent> getEventsSince(long sequence) {
+        return log.since(sequence);
+    }
+
+    public long getLastSequence() {
+        return log.getLastSequence();
+    }
+
+    void on(GameEvent.GameStarted e) {
+        infoFirstRound = e.isInfoFirstRound();
+    }
+
+    void on(GameEvent.PlayerSeated e) {
+        var playerData = new PlayerData(e.getPlayer());
+        addPlayerData(playerData);
+        playerData.setScore(e.getScore());
+        setDecision(playerData, Decision.NOT_DECIDED);
+    }
+
+    void on(GameEvent.PlayerLeft e) {
+        var playerData = getPlayerData(e.getSeat());
+        if (playerData == null) {
+            return;
+        }
+        setPotAmount(potAmount + e.getForfeited());
+        if (e.getSeat() == currentSeat) {
+            nextPlayer();
+        }
+        removePlayerData(playerData);
+    }
+
+    void on(GameEvent.RoundDealt e) {
+        setVideoData(e.getVideoData());
+        var hands = e.getHands().iterator();
+        for (PlayerData playerData : getPlayerDataCollection()) {
+            setDecision(playerData, Decision.NOT_DECIDED);
+            playerData.setNewHand(hands.next());
+            playerData.setScorePutIntoPot(0);
+        }
+        resetTable();
+    }
+
+    void on(GameEvent.DealerMoved e) {
+        setDealerSeat(e.getSeat());
+    }
+
+    void on(GameEvent.BettingRoundStarted e) {
+        for (PlayerData pd : getPlayerDataCollection()) {
+            if (pd.getDecision() != Decision.FOLD) {
+                setDecision(pd, Decision.NOT_DECIDED);
+            }
+        }
+        setCurrentSeat(dealerSeat);
+        nextPlayer();
+        lastRaisingSeat = currentSeat;
+    }
+
+    void on(GameEvent.BlindPosted e) {
+        setCallAmount(e.getAmount());
+        addToPot(getPlayerData(e.getSeat()));
+        if (e.isBigBlind()) {
+            setCurrentSeat(e.getSeat());
+            nextPlayer();
+            lastRaisingSeat = currentSeat;
+        }
+    }
+
+    void on(GameEvent.DecisionMade e) {
+        var playerData = getPlayerData(e.getSeat());
+        switch (e.getDecision()) {
+            case CALL:
+                addToPot(playerData);
+                break;
+            case FOLD:
+                foldCount++;
+                break;
+            case RAISE:
+                setCallAmount(e.getCallAmount());
+                addToPot(playerData);
+                lastRaisingSeat = e.getSeat();
+                break;
+            default:
+                throw new IllegalStateException("Illegal decision " + e.getDecision());
+        }
+        setDecision(playerData, e.getDecision());
+        nextPlayer();
+    }
+
+    void on(GameEvent.PhaseAdvanced e) {
+        setGamePhase(e.getPhase());
+    }
+
+    void on(GameEvent.PotAwarded e) {
+        setGamePhase(e.getPhase());
+        var playerData = getPlayerData(e.getSeat());
+        playerData.setScore(playerData.getScore() + e.getAmount());
+        setPotAmount(potAmount - e.getAmount());
+        this.winner = playerData.getPlayer(); //first  set winner then update
+        for (GameObserver o : observers) {
+            o.roundWinnerIs(gameId, winner);
+        }
+    }
+
+    private void resetTable() {//call before playing
+        setCurrentSeat(NO_SEAT);
         setGamePhase(GamePhase.FIRST_BETTING_ROUND);
         setPotAmount(0);
         setWinner(new Player());
         setCallAmount(0);
-        setFoldCount(0);
+        foldCount = 0;
     }
 
-    public void resetBettingRound() {
-        setCurrentPlayer(dealerPlayer);
-        nextPlayer();
-        setLastRaisingPlayer(currentPlayer);
+    private void addToPot(PlayerData playerData) { //GameLogic checked that the player has enough score
+        playerData.setScore(playerData.getScore() - (callAmount - playerData.getScorePutIntoPot()));
+        setPotAmount(potAmount + (callAmount - playerData.getScorePutIntoPot()));
+        playerData.setScorePutIntoPot(callAmount);
     }
     
     //observer stuff------------------------------
+    public void commit() { //end of a command
+        for (GameObserver o : observers) {
+            o.changesCommitted(gameId);
+        }
+    }
+
     public void addObserver(GameObserver o) {
         observers.add(o);
-        for (PlayerData p : playersData.values()) {
+        for (PlayerData p : getPlayerDataCollection()) {
             p.addObserver(gameId, o);
         }
     }
 
     public void removeObserver(GameObserver o) {
         observers.remove(o);
-        for (PlayerData p : playersData.values()) {
+        for (PlayerData p : getPlayerDataCollection()) {
             p.removeObserver(o);
         }
     }
 
     //player stuff-------------------------------
-    public void addPlayerData(PlayerData p) {
-        synchronized (playersData) {
-            playersData.put(p.token ,p);
-            playerOrder.add(p.getPlayer());
-            for (GameObserver o : observers) {
-                p.addObserver(gameId, o);
-            }
+    private void addPlayerData(PlayerData p) {
+        if (seats.size() >= MAX_SEATS) {
+            throw new IllegalStateException("A game has at most " + MAX_SEATS + " seats");
+        }
+        p.seat = seats.size();
+        seats.add(p);
+        seated |= 1L << p.seat;
+        folded &= ~(1L << p.seat);
+        for (GameObserver o : observers) {
+            p.addObserver(gameId, o);
         }
     }
     
-    public void removePlayerData(PlayerData p) {
-        synchronized (playersData) {
-            playersData.remove(p.token);
-            playerOrder.remove(p.getPlayer());
-            for (GameObserver o : observers) {
-                o.playerLeft(gameId, p.getPlayer());
-                p.removeObserver(o);
+    private void removePlayerData(PlayerData p) {
+        if (p.seat == NO_SEAT || (seated & (1L << p.seat)) == 0) {
+            return;
+        }
+        seated &= ~(1L << p.seat);
+        for (GameObserver o : observers) {
+            o.playerLeft(gameId, p.getPlayer());
+            p.removeObserver(o);
+        }
+    }
+
+    //the decision of a player always goes through here, so the folded bits stay right
+    private void setDecision(PlayerData p, Decision d) {
+        p.setDecision(d);
+        if (d == Decision.FOLD) {
+            folded |= 1L << p.seat;
+        } else {
+            folded &= ~(1L << p.seat);
+        }
+    }
+
+    //seat stuff------------------------------
+    //the first seat after `seat` (going round the table) whose bit is set in `mask`. NO_SEAT starts at seat 0
+    static int nextSeat(int seat, long mask) {
+        if (mask == 0) {
+            return NO_SEAT;
+        }
+        long after = seat + 1 >= MAX_SEATS ? 0 : mask & (-1L << (seat + 1));
+        return Long.numberOfTrailingZeros(after != 0 ? after : mask);
+    }
+
+    public int getDealerSeat() {
+        return dealerSeat;
+    }
+
+    public int getSeatedCount() {
+        return Long.bitCount(seated);
+    }
+
+    //the seat of the nth seated player, counting from seat 0
+    public int getNthSeat(int n) {
+        long bits = seated;
+        for (int skip = n; skip > 0; skip--) {
+            bits &= bits - 1; //drops the lowest seat
+        }
+        return bits == 0 ? NO_SEAT : Long.numberOfTrailingZeros(bits);
+    }
+
+    public int getNextSeatedAfter(int seat) {
+        return nextSeat(seat, seated);
+    }
+
+    private Player playerAt(int seat) {
+        return seat == NO_SEAT ? new Player() : seats.get(seat).getPlayer();
+    }
+
+    //NO_SEAT if the player is not (or no longer) at the table
+    public int seatOf(Player player) {
+        if (player == null || player.getToken() == null) {
+            return NO_SEAT;
+        }
+        for (long bits = seated; bits != 0; bits &= bits - 1) {
+            int seat = Long.numberOfTrailingZeros(bits);
+            if (player.getToken().equals(seats.get(seat).token)) {
+                return seat;
             }
         }
+        return NO_SEAT;
     }
 
     //other getters and setters------------------------------
     public Player getSmallBlindPlayer() {
-        return smallBlindPlayer;
+        return playerAt(smallBlindSeat);
     }
 
     public Player getBigBlindPlayer() {
-        return bigBlindPlayer;
+        return playerAt(bigBlindSeat);
     }
     
     public Player getDealerPlayer() {
-        return dealerPlayer;
-    }
-
-    public void nextDealer() {
-        setDealerPlayer(playerOrder.get((playerOrder.indexOf(dealerPlayer) + 1) % playerOrder.size()));
+        return playerAt(dealerSeat);
     }
 
-    public void nextPlayer() {
-        setCurrentPlayer(playerOrder.get((playerOrder.indexOf(currentPlayer) + 1) % playerOrder.size()));
-        while (Decision.FOLD == playersData.get(currentPlayer.getToken()).getDecision()) {
-            setCurrentPlayer(playerOrder.get((playerOrder.indexOf(currentPlayer) + 1) % playerOrder.size()));
+    private void nextPlayer() {
+        int next = nextSeat(currentSeat, seated & ~folded);
+        if (next != NO_SEAT) {
+            setCurrentSeat(next);
         }
     }
     
-    public void setDealerPlayer() {
-        if (dealerPlayer.getToken() == null) {
-            setDealerPlayer(playerOrder.get(rand.nextInt(playerOrder.size())));
-        } else {
-            setDealerPlayer(dealerPlayer);
-        }
-    }
-
-    public void setDealerPlayer(Player dealer) {
-        synchronized (this.dealerPlayer) {
-            synchronized (smallBlindPlayer) {
-                synchronized (bigBlindPlayer) {
-                    var indexDealer = playerOrder.indexOf(dealer);
-                    if(!smallBlindPlayer.compareTo(playerOrder.get((indexDealer + 1) % playerOrder.size())) ||
-                            !bigBlindPlayer.compareTo(playerOrder.get((indexDealer + 2) % playerOrder.size()))) {
-                    
-                            smallBlindPlayer = playerOrder.get((indexDealer + 1) % playerOrder.size());
-                            bigBlindPlayer = playerOrder.get((indexDealer + 2) % playerOrder.size());
-                            for (GameObserver o : observers) {
-                                o.newPlayerBigBlindNSmallBlind(gameId, smallBlindPlayer, bigBlindPlayer);
-                            }
-                        }
-                    this.dealerPlayer = dealer;
-                }
+    private void setDealerSeat(int dealer) {
+        int smallBlind = nextSeat(dealer, seated);
+        int bigBlind = nextSeat(smallBlind, seated);
+        if (smallBlind != smallBlindSeat || bigBlind != bigBlindSeat) {
+            smallBlindSeat = smallBlind;
+            bigBlindSeat = bigBlind;
+            for (GameObserver o : observers) {
+                o.newPlayerBigBlindNSmallBlind(gameId, playerAt(smallBlindSeat), playerAt(bigBlindSeat));
             }
         }
+        this.dealerSeat = dealer;
     }
 
     // private void resetSmallBigBlind() {
-    //     synchronized (smallBlindPlayer) {
-    //         synchronized (bigBlindPlayer) {
-    //             smallBlindPlayer = new Player();
-    //             bigBlindPlayer = new Player();
-    //             for (GameObserver o : observers) {
-    //                 o.newPlayerBigBlindNSmallBlind(gameId, smallBlindPlayer, bigBlindPlayer);
-    //             }
-    //         }
+    //     smallBlindPlayer = new Player();
+    //     bigBlindPlayer = new Player();
+    //     for (GameObserver o : observers) {
+    //         o.newPlayerBigBlindNSmallBlind(gameId, smallBlindPlayer, bigBlindPlayer);
     //     }
     // }
 
     public List<HandOwnerWinner> getHands() throws IllegalStateException {
-        synchronized (playersData) {
-            synchronized (winner) {
-                var l = new ArrayList<HandOwnerWinner>();
-                for (PlayerData pd : playersData.values()) {
-                    var how = new HandOwnerWinner();
-                    how.setHand(pd.getHand());
-                    how.setPlayer(pd.getPlayer());
-                    how.setIsWinner(false);
-                    if (how.getPlayer().compareTo(winner)) {
-                        how.setIsWinner(true);
-                    }
-                    l.add(how);
-                }
-                if (winner.getToken() == null) {
-                    throw new IllegalStateException("There is currently no Winner in Game: " + gameId);
-                }
-                return l;
+        var l = new ArrayList<HandOwnerWinner>();
+        for (PlayerData pd : getPlayerDataCollection()) {
+            var how = new HandOwnerWinner();
+            how.setHand(pd.getHand());
+            how.setPlayer(pd.getPlayer());
+            how.setIsWinner(false);
+            if (how.getPlayer().compareTo(winner)) {
+                how.setIsWinner(true);
             }
+            l.add(how);
+        }
+        if (winner.getToken() == null) {
+            throw new IllegalStateException("There is currently no Winner in Game: " + gameId);
         }
+        return l;
     }
 
 
@@ -205,45 +363,49 @@ class GameModel { //protected (Package Private)
         return gameId;
     }
 
-    public Collection<PlayerData> getPlayerDataCollection() {
-        return playersData.values();
+    public Collection<PlayerData> getPlayerDataCollection() { //in seat order
+        List<PlayerData> l = new ArrayList<>(Long.bitCount(seated));
+        for (long bits = seated; bits != 0; bits &= bits - 1) {
+            l.add(seats.get(Long.numberOfTrailingZeros(bits)));
+        }
+        return l;
+    }
+
+    public PlayerData getPlayerData(int seat) {
+        return seat == NO_SEAT || (seated & (1L << seat)) == 0 ? null : seats.get(seat);
     }
 
     public PlayerData getPlayerData(Player player) {
-        return playersData.get(player.getToken());
+        return getPlayerData(seatOf(player));
     }
 
     public VideoData getVideoData() {
         return videoData;
     }
 
-    public void setVideoData(VideoData videoData) {
+    private void setVideoData(VideoData videoData) {
         if (videoData == null || videoData == this.videoData) {return;}
 
-        synchronized (videoData) {
-            this.videoData = videoData;
-        }
+        this.videoData = videoData;
     }
 
     public GamePhase getGamePhase() {
         return gamePhase;
     }
 
-    public void setGamePhase(GamePhase gamePhase) {
+    private void setGamePhase(GamePhase gamePhase) {
         if (gamePhase == null || gamePhase == this.gamePhase) {
             return;
         }
 
-        synchronized (this.gamePhase) {
-            for (GameObserver o : observers) {
-                o.gamePhaseChange(gameId, gamePhase);
-            }
-            this.gamePhase = gamePhase;
+        for (GameObserver o : observers) {
+            o.gamePhaseChange(gameId, gamePhase);
         }
+        this.gamePhase = gamePhase;
         updateVideoData(infoFirstRound);
     }
     
-    public void updateVideoData(boolean infoFirstRound) {
+    private void updateVideoData(boolean infoFirstRound) {
         for (var o : observers) {
             try {
                 o.newVideoData(gameId, videoData.getPartialVideoData(gamePhase.getVal() + (infoFirstRound ? 1 : 0)));
@@ -254,20 +416,20 @@ class GameModel { //protected (Package Private)
     }
 
     public Player getCurrentPlayer() {
-        return currentPlayer;
+        return playerAt(currentSeat);
+    }
+
+    public int getCurrentSeat() {
+        return currentSeat;
     }
 
-    public void setCurrentPlayer(Player currentPlayer) {
-        if (currentPlayer == null) {
-            throw new IllegalArgumentException("CurrentPlayer is null but should not be null");}
-        if (currentPlayer.compareTo(this.currentPlayer)) {
+    private void setCurrentSeat(int seat) {
+        if (seat == currentSeat) {
             return;}
-        synchronized (this.currentPlayer) {
-            for (GameObserver o : observers) {
-                o.currentPlayerChange(gameId, currentPlayer);
-            }
-            this.currentPlayer = currentPlayer;
+        for (GameObserver o : observers) {
+            o.currentPlayerChange(gameId, playerAt(seat));
         }
+        this.currentSeat = seat;
     }
 
 
@@ -275,7 +437,7 @@ class GameModel { //protected (Package Private)
         return potAmount;
     }
 
-    public void setPotAmount(int pot) {
+    private void setPotAmount(int pot) {
         if (pot == this.potAmount) {
             return;}
         for (GameObserver o : observers) {
@@ -289,7 +451,7 @@ class GameModel { //protected (Package Private)
         return callAmount;
     }
 
-    public void setCallAmount(int callAmount) {
+    private void setCallAmount(int callAmount) {
         if (callAmount == this.callAmount) {
             return;}
         for (GameObserver o : observers) {
@@ -304,48 +466,32 @@ class GameModel { //protected (Package Private)
     }
 
     public Player getLastRaisingPlayer() {
-        return lastRaisingPlayer;
+        return playerAt(lastRaisingSeat);
     }
 
-    public void setLastRaisingPlayer(Player player) {      
-        synchronized (this.lastRaisingPlayer) {
-            this.lastRaisingPlayer = player;
-        }
+    public int getLastRaisingSeat() {
+        return lastRaisingSeat;
     }
 
     public int getFoldCount() {
         return foldCount;
     }
 
-    public void setFoldCount(int foldCount) {
-        this.foldCount = foldCount;
-    }
-
     public Player getWinner() {
         return winner;
     }
 
-    public void setWinner(Player winner) {
+    private void setWinner(Player winner) { //only to reset the winner, the pot is awarded by on(PotAwarded)
         if (winner.getToken() != null && winner.getToken().equals(this.winner.getToken())) {
             return;
         }
         if (winner.getClass() == null && this.winner.getToken() == null) {
             return;
         }
-        //update points
-        synchronized (playersData) { 
-            synchronized (winner) {
-                if (winner.getToken() != null) {
-                    int score = getPlayerData(winner).getScore();
-                    getPlayerData(winner).setScore(score + potAmount);
-                    setPotAmount(0);
-                }
-                //declare winner
-                this.winner = winner; //first  set winner then update
-                for (GameObserver o : observers) {
-                    o.roundWinnerIs(gameId, winner);
-                }
-            }
+        //declare winner
+        this.winner = winner; //first  set winner then update
+        for (GameObserver o : observers) {
+            o.roundWinnerIs(gameId, winner);
         }
     }
 
@@ -354,11 +500,7 @@ class GameModel { //protected (Package Private)
     }
 
     public void setHost(Player host) {
-        synchronized (host) {
-
-            
-            this.host = host;
-        }
+        this.host = host;
     }
 
 }
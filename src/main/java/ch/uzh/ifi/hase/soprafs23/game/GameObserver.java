@@ -31,4 +31,9 @@ public interface GameObserver {
     void updatePlayerPotScore(String gameId, Player player, Integer scorePutIntoPot);
 
     void playerLeft(String gameId, Player p);
+
+    //called once after every command of the game (a decision, the next round, ...) when all the callbacks above for
+    //that command were made. Observers which collect the changes of a command send them here in one go.
+    default void changesCommitted(String gameId) {
+    }
 }
@@ -0,0 +1,126 @@
+package ch.uzh.ifi.hase.soprafs23.game;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.SplittableRandom;
+
+//Deals random cards without repeats. A Deck is a partial Fisher-Yates shuffle over the indices of a list: every draw
+//swaps one random index to the front, only the swapped indices are remembered. So drawing k cards costs O(k), no
+//matter how long the list is, and the list itself is never changed.
+//Every dealer is created for a key, e.g. the videos of a harvest or a game. If the system property hand.dealer.seed
+//is set, the dealer is seeded with it and the key, so the same key deals exactly the same hands no matter on which
+//thread or in which order the dealers are created (debugging, benchmarks). Otherwise every dealer is random.
+public class HandDealer {
+    private static final Long SEED = Long.getLong("hand.dealer.seed");
+
+    private final SplittableRandom random;
+
+    public HandDealer() {
+        this(new SplittableRandom());
+    }
+
+    public HandDealer(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private HandDealer(SplittableRandom random) {
+        this.random = random;
+    }
+
+    //a new dealer, independent of all others
+    public static HandDealer create(String key) {
+        return create(SEED, key);
+    }
+
+    static HandDealer create(Long seed, String key) {
+        return seed != null ? new HandDealer(seed ^ key.hashCode()) : new HandDealer();
+    }
+
+    public HandDealer split() {
+        return new HandDealer(random.split());
+    }
+
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    public <T> Deck<T> deck(List<T> cards) {
+        return new Deck<>(cards instanceof RandomAccess ? cards : List.copyOf(cards), random);
+    }
+
+    //the lists one after the other, as one list without copying them
+    public static <T> List<T> concat(List<? extends List<T>> parts) {
+        return new Concat<>(parts);
+    }
+
+    public static class Deck<T> {
+        private final List<T> cards;
+        private final SplittableRandom random;
+        private final Map<Integer, Integer> swapped = new HashMap<>(); //position -> index, if not the identity
+        private int drawn = 0;
+
+        private Deck(List<T> cards, SplittableRandom random) {
+            this.cards = cards;
+            this.random = random;
+        }
+
+        public T next() throws IllegalStateException {
+            if (drawn >= cards.size()) {
+                throw new IllegalStateException("No cards left, all " + cards.size() + " cards are dealt");
+            }
+            int pick = drawn + random.nextInt(cards.size() - drawn);
+            int index = swapped.getOrDefault(pick, pick);
+            swapped.put(pick, swapped.getOrDefault(drawn, drawn));
+            swapped.remove(drawn); //this position is never looked at again
+            drawn++;
+            return cards.get(index);
+        }
+
+        public int remaining() {
+            return cards.size() - drawn;
+        }
+    }
+
+    private static class Concat<T> extends AbstractList<T> implements RandomAccess {
+        private final List<? extends List<T>> parts;
+        private final int[] starts;
+        private final int size;
+
+        Concat(List<? extends List<T>> parts) {
+            this.parts = parts;
+            starts = new int[parts.size()];
+            int s = 0;
+            for (int i = 0; i < parts.size(); i++) {
+                starts[i] = s;
+                s += parts.get(i).size();
+            }
+            size = s;
+        }
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            int lo = 0;
+            int hi = starts.length - 1;
+            while (lo < hi) { //last part which starts at or before index
+                int mid = (lo + hi + 1) >>> 1;
+                if (starts[mid] <= index) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return parts.get(lo).get(index - starts[lo]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -9,6 +9,7 @@ class PlayerData { //protected (Package Private)
     private final Player player;
     final String token;
     final String name;
+    int seat = GameModel.NO_SEAT; //set by the GameModel
     private String gameId;
     private Integer score = 0;
     private Integer scorePutIntoPot = 0;
@@ -32,16 +33,12 @@ class PlayerData { //protected (Package Private)
     }
 
     public void addObserver(String gameId, GameObserver o) {
-        synchronized (observersPlayer) {
-            this.gameId = gameId;
-            observersPlayer.add(o);
-        }
+        this.gameId = gameId;
+        observersPlayer.add(o);
     }
 
     public void removeObserver(GameObserver o) {
-        synchronized (observersPlayer){
-            observersPlayer.remove(o);
-        }
+        observersPlayer.remove(o);
     }
 
     //setters and getter-------------------------------------
@@ -50,7 +47,7 @@ class PlayerData { //protected (Package Private)
         return scorePutIntoPot;
     }
 
-    public synchronized void setScorePutIntoPot(Integer scorePutIntoPot) {
+    public void setScorePutIntoPot(Integer scorePutIntoPot) {
         for(var o : observersPlayer){
             o.updatePlayerPotScore(gameId, player, scorePutIntoPot);
         }
@@ -62,7 +59,7 @@ class PlayerData { //protected (Package Private)
     }
 
 
-    public synchronized void setScore(Integer score) {
+    public void setScore(Integer score) {
         if (score == null) {
             return;
         }
@@ -80,7 +77,7 @@ class PlayerData { //protected (Package Private)
         return score;
     }
     
-    public synchronized void setNewHand(Hand hand) {
+    public void setNewHand(Hand hand) {
         if (hand == this.hand) {
             return;}
         for (GameObserver o : observersPlayer) {
@@ -100,7 +97,7 @@ class PlayerData { //protected (Package Private)
         return hand;
     }
 
-    public synchronized void setDecision(Decision d) {
+    public void setDecision(Decision d) {
         if (d == this.decision) {
             return;}
         for (GameObserver o : observersPlayer) {
@@ -1,11 +1,13 @@
 package ch.uzh.ifi.hase.soprafs23.game;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 
 import org.springframework.data.util.Pair;
 
 import ch.uzh.ifi.hase.soprafs23.YTAPIManager.Language;
+import ch.uzh.ifi.hase.soprafs23.YTAPIManager.RoundSourceType;
 import ch.uzh.ifi.hase.soprafs23.YTAPIManager.YTAPIManager;
 
 public class VideoSetup {
@@ -28,10 +30,30 @@ public class VideoSetup {
         ytAPIManager.setLanguage(language);
     }
 
-    public void setMinimalViewcount(Integer viewCount) throws IllegalStateException {
+    public void setMinimalViewcount(Integer viewCount) throws IllegalArgumentException {
         ytAPIManager.setMinimalViewcount(viewCount);
     }
 
+    public void setHarvestParallelism(int parallelism) throws IllegalArgumentException {
+        ytAPIManager.setHarvestParallelism(parallelism);
+    }
+
+    public void setHarvestDeadline(Duration deadlinePerVideo) throws IllegalArgumentException {
+        ytAPIManager.setHarvestDeadline(deadlinePerVideo);
+    }
+
+    public void setVideosPerHarvest(int videos) throws IllegalArgumentException {
+        ytAPIManager.setVideosPerHarvest(videos);
+    }
+
+    public void setRoundSources(List<RoundSourceType> sources) throws IllegalArgumentException {
+        ytAPIManager.setRoundSources(sources);
+    }
+
+    public void setPrefetchDepth(int depth) throws IllegalArgumentException {
+        ytAPIManager.setPrefetchDepth(depth);
+    }
+
     protected Pair<VideoData, List<Hand>> getVideoAndHand() throws IOException, InterruptedException {
         return ytAPIManager.getVideoAndHand();
     }
@@ -39,4 +61,8 @@ public class VideoSetup {
     public void useYtApi(boolean b) {
         ytAPIManager.useYtApi(b);
     }
+
+    protected void close() { //stops preparing rounds in the background
+        ytAPIManager.close();
+    }
 }
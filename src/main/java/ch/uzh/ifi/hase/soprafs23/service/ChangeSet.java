@@ -0,0 +1,39 @@
+package ch.uzh.ifi.hase.soprafs23.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ch.uzh.ifi.hase.soprafs23.game.Hand;
+import ch.uzh.ifi.hase.soprafs23.rest.dto.VideoDataWsDTO;
+
+//What changed in a game during the command which is running right now. The observer methods of GameService update
+//the GameData and only mark here what has to be sent. When the command is done (GameObserver.changesCommitted) one
+//update per destination is sent, so a decision is one state and one players frame instead of one per changed field.
+class ChangeSet {
+    boolean gameState;
+    boolean players;
+    boolean showdown;
+    VideoDataWsDTO videoData; //null if unchanged
+    final Map<String, Hand> hands = new LinkedHashMap<>(); //by player token
+
+    boolean isEmpty() {
+        return !gameState && !players && !showdown && videoData == null && hands.isEmpty();
+    }
+
+    //returns the changes so far and starts a new change set
+    ChangeSet take() {
+        var taken = new ChangeSet();
+        taken.gameState = gameState;
+        taken.players = players;
+        taken.showdown = showdown;
+        taken.videoData = videoData;
+        taken.hands.putAll(hands);
+
+        gameState = false;
+        players = false;
+        showdown = false;
+        videoData = null;
+        hands.clear();
+        return taken;
+    }
+}
@@ -21,6 +21,7 @@ class GameData {
     protected Map<String, Hand> handData = new HashMap<>();
     protected VideoDataWsDTO videoData = null;
     protected SettingsWsDTO settings = null;
+    protected final ChangeSet changes = new ChangeSet(); //what the running command changed, sent when it is done
 
     public GameData(List<Player> players){
         for(Player player: players){
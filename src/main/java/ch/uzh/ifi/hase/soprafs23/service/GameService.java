@@ -246,7 +246,7 @@ public class GameService implements GameObserver{
         gameData.playersData.get(player.getToken()).setScore(score);
 
         //send GameData to front end
-        // gameController.playerStateChanged(gameId, gameData.playersData.values());
+        gameData.changes.players = true;
     }
 
     
@@ -257,7 +257,7 @@ public class GameService implements GameObserver{
         var gameData = getGameData(gameId);
         gameData.handData.put(player.getToken(), hand);
         //send GameData to front end
-        gameController.newHand(gameId, player, hand);
+        gameData.changes.hands.put(player.getToken(), hand);
     }
 
     @Override
@@ -269,7 +269,7 @@ public class GameService implements GameObserver{
         playerWsDTO.setLastDecision(decision);
 
         //send GameData to front end
-        // gameController.playerStateChanged(gameId, gameData.playersData.values()); 
+        gameData.changes.players = true;
 
     }
 
@@ -280,7 +280,7 @@ public class GameService implements GameObserver{
         gameData.setCurrentPlayer(player);
 
         //send GameData to front end
-        gameController.playerStateChanged(gameId, gameData.playersData.values()); 
+        gameData.changes.players = true;
 
     }
 
@@ -288,7 +288,6 @@ public class GameService implements GameObserver{
     public void roundWinnerIs(String gameId, Player player) {
         //update GameData
         GameData gameData = getGameData(gameId);
-        Game game = getGame(gameId);
         gameData.gameStateWsDTO.setRoundWinnerToken(player.getToken());
         //send GameData to front end
 
@@ -296,16 +295,16 @@ public class GameService implements GameObserver{
             return;
         }
 
-        gameController.gameStateChanged(gameId, gameData.gameStateWsDTO);
-        gameController.showdown(gameId, game.getHands());
-        gameController.playerStateChanged(gameId, gameData.playersData.values());
+        gameData.changes.gameState = true;
+        gameData.changes.showdown = true;
+        gameData.changes.players = true;
     }
 
     @Override
     public void gameGettingClosed(String gameId) {
         GameData gameData = getGameData(gameId);
         gameData.gameStateWsDTO.setGamePhase(GamePhase.CLOSED);
-        gameController.gameStateChanged(gameId, gameData.gameStateWsDTO);
+        gameData.changes.gameState = true;
     }
 
     @Override
@@ -315,7 +314,7 @@ public class GameService implements GameObserver{
         gameData.gameStateWsDTO.setGamePhase(gamePhase);
 
         //send GameData to front end
-        gameController.gameStateChanged(gameId, gameData.gameStateWsDTO);
+        gameData.changes.gameState = true;
 
 
     }
@@ -327,7 +326,7 @@ public class GameService implements GameObserver{
         gameData.gameStateWsDTO.setCurrentPot(score);
 
         //send GameData to front end
-        gameController.gameStateChanged(gameId, gameData.gameStateWsDTO);
+        gameData.changes.gameState = true;
     }
 
     @Override
@@ -337,7 +336,7 @@ public class GameService implements GameObserver{
         gameData.gameStateWsDTO.setCurrentBet(newCallAmount);
 
         //send GameData to front end
-        gameController.gameStateChanged(gameId, gameData.gameStateWsDTO);
+        gameData.changes.gameState = true;
     }
 
     @Override
@@ -348,7 +347,7 @@ public class GameService implements GameObserver{
         gameData.setBigBlind(bigBlind);
 
         //send GameData to front end
-        // gameController.playerStateChanged(gameId, gameData.playersData.values());
+        gameData.changes.players = true;
     }
 
     @Override
@@ -362,7 +361,32 @@ public class GameService implements GameObserver{
         vd.setViews(videoData.views);
         var gameData = getGameData(gameId);
         gameData.videoData = vd;
-        gameController.newVideoData(gameId, vd);
+        gameData.changes.videoData = vd;
+    }
+
+    @Override
+    public void changesCommitted(String gameId) { //one update per destination for everything the command changed
+        GameData gameData = getGameData(gameId);
+        ChangeSet changes = gameData.changes.take();
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        if (changes.gameState) {
+            gameController.gameStateChanged(gameId, gameData.gameStateWsDTO);
+        }
+        if (changes.showdown) {
+            gameController.showdown(gameId, getGame(gameId).getHands());
+        }
+        if (changes.players) {
+            gameController.playerStateChanged(gameId, gameData.playersData.values());
+        }
+        if (changes.videoData != null) {
+            gameController.newVideoData(gameId, changes.videoData);
+        }
+        for (var hand : changes.hands.entrySet()) {
+            gameController.newHand(gameId, hand.getKey(), hand.getValue());
+        }
     }
 
     /** HELPER METHODS 
@@ -431,14 +455,14 @@ public class GameService implements GameObserver{
     public void updatePlayerPotScore(String gameId, Player player, Integer scorePutIntoPot) {
         var gameData = getGameData(gameId);
         gameData.playersData.get(player.getToken()).setScorePlayerPutIntoPot(scorePutIntoPot);
-        //since this always changes if a player also does a decision. No update is sent to FE
+        gameData.changes.players = true; //comes with the decision anyway, the bundle stays one frame
     }
 
     @Override
     public void playerLeft(String gameId, Player p) {
         var gameData = getGameData(gameId);
         gameData.playersData.remove(p.getToken());
-        gameController.playerStateChanged(gameId, gameData.playersData.values());
+        gameData.changes.players = true;
     }
 
     public void noYtApi(String gameId) {
@@ -0,0 +1,113 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.util.Pair;
+
+import ch.uzh.ifi.hase.soprafs23.entity.Comment;
+import ch.uzh.ifi.hase.soprafs23.game.Correctness;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class APIControllerTest {
+
+  //every video gets the comments of the fixture, marked with its own videoId
+  private static List<Pair<VideoList.Item, List<Comment>>> harvest() throws IOException {
+    var videos = APIController.fromJsonToVideoList(APIController.readFile("src/main/resources/VideoByQueryJson.txt"));
+    var comments = CommentStreamDecoder.decode(
+        APIController.readFile("src/main/resources/CommentsByVideoIdJson.txt"), CommentHarvester.MINCHARS);
+    List<Pair<VideoList.Item, List<Comment>>> harvest = new ArrayList<>();
+    for (var item : videos.items) {
+      List<Comment> own = new ArrayList<>();
+      for (var c : comments) {
+        own.add(new Comment(c.commentId, item.id.videoId, c.content, c.author, c.likes, c.date));
+      }
+      harvest.add(Pair.of(item, own));
+    }
+    return harvest;
+  }
+
+  private static Map<String, VideoStatsCache.Stats> stats(List<Pair<VideoList.Item, List<Comment>>> videos) {
+    Map<String, VideoStatsCache.Stats> stats = new HashMap<>();
+    for (var video : videos) {
+      stats.put(video.getFirst().id.videoId, new VideoStatsCache.Stats(1000, 10, Duration.ofMinutes(3)));
+    }
+    return stats;
+  }
+
+  private static void assertDealtFor(RoundPack pack) {
+    assertEquals(7, pack.hands.size());
+    Set<String> dealt = new HashSet<>();
+    for (var hand : pack.hands) {
+      assertEquals(6, hand.getComments().size());
+      for (var card : hand.getComments()) {
+        if (card.getSecond() == Correctness.CORRECT) {
+          assertEquals(pack.videoId, card.getFirst().videoId);
+        } else {
+          assertNotEquals(pack.videoId, card.getFirst().videoId);
+        }
+        assertTrue(dealt.add(card.getFirst().videoId + "/" + card.getFirst().commentId));
+      }
+    }
+  }
+
+  @Test
+  public void onePackPerHarvestedVideo() throws IOException {
+    var harvest = harvest();
+    var packs = APIController.dealRoundPacks(harvest, stats(harvest));
+
+    assertEquals(harvest.size(), packs.size());
+    Set<String> videoIds = new HashSet<>();
+    for (var pack : packs) {
+      assertTrue(videoIds.add(pack.videoId));
+      assertEquals(1000, pack.videoData.views);
+      assertDealtFor(pack);
+    }
+  }
+
+  @Test
+  public void videosWithoutStatsAreOnlyDistractors() throws IOException {
+    var harvest = harvest();
+    var withStats = harvest.subList(0, 3);
+    var packs = APIController.dealRoundPacks(harvest, stats(withStats));
+
+    assertEquals(3, packs.size());
+    Set<String> packIds = new HashSet<>();
+    Set<String> distractorIds = new HashSet<>();
+    for (var pack : packs) {
+      packIds.add(pack.videoId);
+      assertDealtFor(pack);
+      for (var hand : pack.hands) {
+        for (var card : hand.getComments()) {
+          if (card.getSecond() == Correctness.WRONG) {
+            distractorIds.add(card.getFirst().videoId);
+          }
+        }
+      }
+    }
+    Set<String> expected = new HashSet<>();
+    for (var video : withStats) {
+      expected.add(video.getFirst().id.videoId);
+    }
+    assertEquals(expected, packIds);
+    distractorIds.removeAll(packIds);
+    assertTrue(distractorIds.size() > 0); //comments of the videos without stats were dealt as wrong ones
+  }
+
+  @Test
+  public void harvestWithoutAnyStatsFails() throws IOException {
+    var harvest = harvest();
+    assertThrows(IllegalStateException.class, () -> APIController.dealRoundPacks(harvest, new HashMap<>()));
+  }
+}
@@ -0,0 +1,53 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+public class ApiKeyPoolTest {
+
+  @Test
+  public void blankLinesAreIgnored() {
+    var pool = new ApiKeyPool(List.of("keyA", "", "  keyB  ", " "), 100);
+
+    assertEquals(2, pool.size());
+    assertEquals(200L, pool.getDailyBudget());
+  }
+
+  @Test
+  public void callsAreSpreadOverTheKeys() {
+    var pool = new ApiKeyPool(List.of("keyA", "keyB"), 100);
+
+    var first = pool.acquire(10);
+    var second = pool.acquire(10);
+    var third = pool.acquire(1);
+
+    assertNotEquals(first.value, second.value);
+    assertEquals(first.value, third.value);
+  }
+
+  @Test
+  public void disabledKeyIsSkippedUntilReset() {
+    var pool = new ApiKeyPool(List.of("keyA", "keyB"), 100);
+
+    var a = pool.acquire(30);
+    assertEquals(70L, pool.disable(a));
+    assertEquals(1, pool.getAvailableCount());
+    for (int i = 0; i < 5; i++) {
+      assertNotEquals(a.value, pool.acquire(1).value);
+    }
+
+    pool.disable(pool.acquire(1));
+    assertEquals(0, pool.getAvailableCount());
+    assertThrows(IllegalStateException.class, () -> pool.acquire(1));
+  }
+
+  @Test
+  public void noKeyThrows() {
+    assertThrows(IllegalStateException.class, () -> new ApiKeyPool(List.of("", "  "), 100));
+  }
+}
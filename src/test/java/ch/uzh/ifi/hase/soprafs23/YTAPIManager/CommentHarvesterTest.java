@@ -0,0 +1,74 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CommentHarvesterTest {
+
+  private static VideoList videos(String... ids) {
+    var list = new VideoList();
+    list.items = new ArrayList<>();
+    for (String id : ids) {
+      var item = list.new Item();
+      item.id = item.new itemId();
+      item.id.videoId = id;
+      list.items.add(item);
+    }
+    return list;
+  }
+
+  //answers every video with the fixture after `delayMillis` and remembers how many requests were open at once
+  private static class FakeComments implements CommentHarvester.CommentFetcher {
+    final String json;
+    final long delayMillis;
+    final AtomicInteger open = new AtomicInteger();
+    final AtomicInteger maxOpen = new AtomicInteger();
+
+    FakeComments(long delayMillis) throws Exception {
+      this.json = APIController.readFile("src/main/resources/CommentsByVideoIdJson.txt");
+      this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public CompletableFuture<String> fetch(String videoId) {
+      maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+      return CompletableFuture.supplyAsync(() -> {
+        open.decrementAndGet();
+        return json;
+      }, CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS));
+    }
+  }
+
+  @Test
+  public void keepsTheOrderOfTheVideoList() throws Exception {
+    var fake = new FakeComments(10);
+    var harvester = new CommentHarvester(2, Duration.ofSeconds(5), fake);
+
+    var harvest = harvester.harvest(videos("a", "b", "c", "d"));
+    List<String> ids = new ArrayList<>();
+    for (var video : harvest) {
+      ids.add(video.getFirst().id.videoId);
+      assertTrue(video.getSecond().size() >= CommentHarvester.MIN_COMMENTS);
+    }
+    assertEquals(List.of("a", "b", "c", "d"), ids);
+  }
+
+  @Test
+  public void timedOutRequestsKeepTheirPermit() throws Exception {
+    var fake = new FakeComments(300);
+    var harvester = new CommentHarvester(2, Duration.ofMillis(20), fake);
+
+    var harvest = harvester.harvestQualifying(videos("a", "b", "c", "d", "e", "f"));
+    assertEquals(0, harvest.size()); //every video was too slow
+    assertEquals(2, fake.maxOpen.get());
+  }
+}
@@ -0,0 +1,182 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.util.Pair;
+
+import ch.uzh.ifi.hase.soprafs23.entity.Comment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class CommentIndexTest {
+
+  private static List<Pair<VideoList.Item, List<Comment>>> harvest() throws IOException {
+    var videos = APIController.fromJsonToVideoList(APIController.readFile("src/main/resources/VideoByQueryJson.txt"));
+    var comments = CommentStreamDecoder.decode(
+        APIController.readFile("src/main/resources/CommentsByVideoIdJson.txt"), CommentHarvester.MINCHARS);
+    List<Pair<VideoList.Item, List<Comment>>> harvest = new ArrayList<>();
+    for (var item : videos.items) {
+      harvest.add(Pair.of(item, comments));
+    }
+    return harvest;
+  }
+
+  private static Map<String, VideoStatsCache.Stats> stats(List<Pair<VideoList.Item, List<Comment>>> harvest) {
+    Map<String, VideoStatsCache.Stats> stats = new HashMap<>();
+    for (var video : harvest) {
+      stats.put(video.getFirst().id.videoId, new VideoStatsCache.Stats(1000, 10, Duration.ofMinutes(3)));
+    }
+    return stats;
+  }
+
+  private static Path newIndexFile() throws IOException {
+    return Files.createTempDirectory("index").resolve("index.log");
+  }
+
+  @Test
+  public void findsVideosMatchingEveryTerm() throws IOException {
+    var index = new CommentIndex(newIndexFile());
+    var harvest = harvest();
+    index.addAll(harvest, stats(harvest), Language.ENGLISH);
+
+    long expected = harvest.stream()
+        .filter(v -> CommentIndex.tokenize(v.getFirst().snippet.title).containsAll(List.of("chill", "drive")))
+        .count();
+    var chillDrive = index.search("Chill DRIVE", Language.ENGLISH, 100);
+    assertTrue(expected > 0);
+    assertEquals(expected, chillDrive.size());
+    for (var document : chillDrive) {
+      assertTrue(document.title.toLowerCase().contains("drive"));
+      assertEquals(1000, document.stats.views);
+    }
+    assertTrue(index.search("lofi", Language.ENGLISH, 100).size() >= 10);
+    assertEquals(3, index.search("lofi", Language.ENGLISH, 3).size());
+    assertEquals(0, index.search("lofi", Language.GERMAN, 100).size());
+    assertEquals(0, index.search("chill nonexistingword", Language.ENGLISH, 100).size());
+  }
+
+  @Test
+  public void titleMatchesRankFirst() throws IOException {
+    var index = new CommentIndex(newIndexFile());
+    var harvest = harvest();
+    index.addAll(harvest, stats(harvest), Language.ENGLISH);
+
+    var best = index.search("coffee", Language.ENGLISH, 1);
+    assertEquals(1, best.size());
+    assertTrue(best.get(0).title.contains("coffee"));
+  }
+
+  @Test
+  public void survivesRestartAndReplacesReharvestedVideos() throws IOException {
+    Path file = newIndexFile();
+    var index = new CommentIndex(file);
+    var harvest = harvest();
+    index.addAll(harvest, stats(harvest), Language.ENGLISH);
+    index.addAll(harvest.subList(0, 3), stats(harvest), Language.ENGLISH); //harvested again
+
+    var reloaded = new CommentIndex(file);
+
+    assertEquals(index.size(), reloaded.size());
+    var before = index.search("chill drive", Language.ENGLISH, 10);
+    var after = reloaded.search("chill drive", Language.ENGLISH, 10);
+    assertEquals(before.size(), after.size());
+    var document = after.get(0);
+    var harvested = document.toHarvested();
+    assertEquals(document.videoId, harvested.getFirst().id.videoId);
+    assertEquals(Math.min(CommentIndex.MAX_COMMENTS_PER_VIDEO, harvest.get(0).getSecond().size()),
+        document.comments.size());
+    assertEquals(harvest.get(0).getSecond().get(0).content, document.comments.get(0).content);
+  }
+
+  @Test
+  public void cutOffRecordIsDropped() throws IOException {
+    Path file = newIndexFile();
+    var harvest = harvest();
+    new CommentIndex(file).addAll(harvest, stats(harvest), Language.ENGLISH);
+    Files.write(file, new byte[] { 0, 0, 0, 11, 'h' }, StandardOpenOption.APPEND); //a crash while appending
+
+    var reloaded = new CommentIndex(file);
+    assertEquals(harvest.size(), reloaded.size());
+    reloaded.addAll(harvest.subList(0, 1), stats(harvest), Language.ENGLISH);
+    assertEquals(harvest.size(), new CommentIndex(file).size());
+  }
+
+  @Test
+  public void harvestsOfAQueryRotateThroughTheMatches() throws IOException {
+    var index = new CommentIndex(newIndexFile());
+    var harvest = harvest();
+    index.addAll(harvest, stats(harvest), Language.ENGLISH);
+
+    Set<String> dealt = new HashSet<>();
+    for (int i = 0; i < 20; i++) {
+      var sample = index.sample("lofi", Language.ENGLISH, 3);
+      assertEquals(3, sample.size());
+      for (var document : sample) {
+        dealt.add(document.videoId);
+      }
+    }
+    assertTrue(dealt.size() > 3);
+  }
+
+  @Test
+  public void queryIsAnsweredOnlyWithEnoughMatches() throws IOException {
+    var index = new CommentIndex(newIndexFile());
+    assertFalse(index.canAnswer("lofi", Language.ENGLISH, 3));
+    var harvest = harvest();
+    index.addAll(harvest, stats(harvest), Language.ENGLISH);
+
+    assertTrue(index.canAnswer("LoFi", Language.ENGLISH, 3));
+    assertFalse(index.canAnswer("lofi", Language.GERMAN, 3));
+    assertFalse(index.canAnswer("lofi", Language.ENGLISH, 1000));
+  }
+
+  @Test
+  public void leastRecentlyUsedVideosAreDropped() throws IOException {
+    Path file = newIndexFile();
+    var index = new CommentIndex(file, 10);
+    var harvest = harvest();
+    index.addAll(harvest.subList(0, 10), stats(harvest), Language.ENGLISH);
+
+    //dealing and harvesting again count as use
+    List<String> leastRecentlyUsedFirst = new ArrayList<>();
+    Set<String> dealt = new HashSet<>();
+    for (var document : index.sample("radio", Language.ENGLISH, 100)) {
+      dealt.add(document.videoId);
+    }
+    for (var video : harvest.subList(1, 10)) {
+      if (!dealt.contains(video.getFirst().id.videoId)) {
+        leastRecentlyUsedFirst.add(video.getFirst().id.videoId);
+      }
+    }
+    index.addAll(harvest.subList(0, 1), stats(harvest), Language.ENGLISH);
+    assertTrue(leastRecentlyUsedFirst.size() >= 2);
+
+    index.addAll(harvest.subList(10, 12), stats(harvest), Language.ENGLISH);
+    assertEquals(10, index.size());
+    assertFalse(index.contains(leastRecentlyUsedFirst.get(0)));
+    assertFalse(index.contains(leastRecentlyUsedFirst.get(1)));
+    for (var video : harvest.subList(0, 12)) {
+      String id = video.getFirst().id.videoId;
+      assertEquals(!leastRecentlyUsedFirst.subList(0, 2).contains(id), index.contains(id));
+    }
+
+    var reloaded = new CommentIndex(file, 10); //the cap holds, the use since the last compaction is not stored
+    assertEquals(10, reloaded.size());
+    for (var video : List.of(harvest.get(0), harvest.get(10), harvest.get(11))) {
+      assertTrue(reloaded.contains(video.getFirst().id.videoId));
+    }
+  }
+}
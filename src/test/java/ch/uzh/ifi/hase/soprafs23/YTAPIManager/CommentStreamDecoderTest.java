@@ -0,0 +1,158 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import ch.uzh.ifi.hase.soprafs23.entity.Comment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class CommentStreamDecoderTest {
+
+  private static final Gson GSON = new GsonBuilder().setDateFormat(DateFormat.FULL, DateFormat.FULL).create();
+
+  //the objects the responses were parsed into before the CommentStreamDecoder
+  private static class CommentList {
+    List<Item> items;
+
+    static class Item {
+      String id;
+      Snippet snippet;
+    }
+
+    static class Snippet {
+      String videoId;
+      TopLevelComment topLevelComment;
+    }
+
+    static class TopLevelComment {
+      CommentSnippet snippet;
+    }
+
+    static class CommentSnippet {
+      String textDisplay;
+      String authorDisplayName;
+      int likeCount;
+      Date publishedAt;
+    }
+  }
+
+  private static class ErrorJson {
+    ErrorBody error;
+
+    static class ErrorBody {
+      String message;
+    }
+  }
+
+  //the old way: parse the response as ErrorJson and as CommentList, then filter by length
+  private static List<Comment> decodeWithGson(String json, int minChars) {
+    ErrorJson err = GSON.fromJson(json, ErrorJson.class);
+    if (err.error != null) {
+      throw new IllegalStateException(err.error.message);
+    }
+    List<Comment> comments = new ArrayList<>();
+    for (var i : GSON.fromJson(json, CommentList.class).items) {
+      var s = i.snippet.topLevelComment.snippet;
+      if (s.textDisplay.length() >= minChars) {
+        comments.add(new Comment(i.id, i.snippet.videoId, s.textDisplay, s.authorDisplayName, s.likeCount,
+            s.publishedAt));
+      }
+    }
+    return comments;
+  }
+
+  private static String fixture() throws IOException {
+    return APIController.readFile("src/main/resources/CommentsByVideoIdJson.txt");
+  }
+
+  @Test
+  public void decodesLikeTheGsonObjects() throws IOException {
+    String json = fixture();
+
+    List<Comment> expected = decodeWithGson(json, CommentHarvester.MINCHARS);
+    List<Comment> decoded = CommentStreamDecoder.decode(json, CommentHarvester.MINCHARS);
+
+    assertTrue(expected.size() > 0);
+    assertEquals(expected.size(), decoded.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).commentId, decoded.get(i).commentId);
+      assertEquals(expected.get(i).videoId, decoded.get(i).videoId);
+      assertEquals(expected.get(i).content, decoded.get(i).content);
+      assertEquals(expected.get(i).author, decoded.get(i).author);
+      assertEquals(expected.get(i).likes, decoded.get(i).likes);
+      assertEquals(expected.get(i).date, decoded.get(i).date);
+    }
+  }
+
+  @Test
+  public void decodesEscapesAndOtherDateFormats() {
+    String json = "{\"items\": [{\"id\": \"c1\", \"snippet\": {\"videoId\": \"v1\", \"topLevelComment\": {\"snippet\":"
+        + " {\"textDisplay\": \"say \\\"hi\\\"\\n\\u2013 \\\\o/ \\/\", \"likeCount\": 7, \"extra\": [1, {\"a\": \"]}\"}],"
+        + " \"authorDisplayName\": null, \"publishedAt\": \"2023-04-18T12:34:56.5+02:00\"}}}}]}";
+
+    var decoded = CommentStreamDecoder.decode(json, 0).get(0);
+    var expected = decodeWithGson(json.replace(".5+02:00", "Z"), 0).get(0);
+
+    assertEquals("say \"hi\"\n\u2013 \\o/ /", decoded.content);
+    assertEquals(expected.content, decoded.content);
+    assertEquals(7, decoded.likes);
+    assertEquals(null, decoded.author);
+    assertEquals(expected.date.getTime() - 2 * 3600 * 1000 + 500, decoded.date.getTime());
+  }
+
+  @Test
+  public void dropsShortComments() throws IOException {
+    for (Comment c : CommentStreamDecoder.decode(fixture(), 200)) {
+      assertTrue(c.content.length() >= 200);
+    }
+  }
+
+  @Test
+  public void errorResponseThrowsWithMessage() throws IOException {
+    String json = APIController.readFile("src/main/resources/CommentsDisabledJson.txt");
+
+    var e = assertThrows(IllegalStateException.class, () -> CommentStreamDecoder.decode(json, 0));
+    var expected = assertThrows(IllegalStateException.class, () -> decodeWithGson(json, 0));
+    assertEquals(expected.getMessage(), e.getMessage());
+  }
+
+  @Test
+  public void brokenResponseThrows() throws IOException {
+    String json = fixture();
+    assertThrows(IllegalStateException.class, () -> CommentStreamDecoder.decode(json.substring(0, 5000), 0));
+    assertThrows(IllegalStateException.class, () -> CommentStreamDecoder.decode("{\"items\": [{\"id\": 12}]}", 0));
+  }
+
+  @Test
+  public void timePerResponse() throws IOException { //prints the times only, a shared CI machine is too noisy to assert
+    String json = fixture();
+    int runs = 2000;
+    for (int i = 0; i < runs; i++) { //warm up the JIT
+      CommentStreamDecoder.decode(json, CommentHarvester.MINCHARS);
+      decodeWithGson(json, CommentHarvester.MINCHARS);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < runs; i++) {
+      CommentStreamDecoder.decode(json, CommentHarvester.MINCHARS);
+    }
+    double decoder = (System.nanoTime() - start) / 1e6 / runs;
+    start = System.nanoTime();
+    for (int i = 0; i < runs; i++) {
+      decodeWithGson(json, CommentHarvester.MINCHARS);
+    }
+    double gson = (System.nanoTime() - start) / 1e6 / runs;
+    System.out.println("CommentStreamDecoder: " + decoder + " ms per response, Gson objects: " + gson + " ms ("
+        + json.length() / 1024 + " KB)");
+  }
+}
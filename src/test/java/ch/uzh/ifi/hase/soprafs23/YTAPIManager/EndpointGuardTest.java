@@ -0,0 +1,197 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLSession;
+
+public class EndpointGuardTest {
+
+  @Test
+  public void serverErrorsAreRetried() throws Exception {
+    var guard = new EndpointGuard(QuotaScheduler.Endpoint.VIDEOS);
+    var attempts = new AtomicInteger();
+
+    var response = guard.call(sending -> CompletableFuture.completedFuture(
+        new FakeResponse(attempts.incrementAndGet() < 3 ? 503 : 200))).get();
+
+    assertEquals(200, response.statusCode());
+    assertEquals(3, attempts.get());
+    assertEquals(2L, guard.getRetryCount());
+  }
+
+  @Test
+  public void clientErrorsAndRejectionsAreNotRetried() throws Exception {
+    var guard = new EndpointGuard(QuotaScheduler.Endpoint.VIDEOS);
+    var attempts = new AtomicInteger();
+
+    assertEquals(404, guard.call(sending -> {
+      attempts.incrementAndGet();
+      return CompletableFuture.completedFuture(new FakeResponse(404));
+    }).get().statusCode());
+    var e = assertThrows(ExecutionException.class, () -> guard.call(sending -> {
+      attempts.incrementAndGet();
+      return CompletableFuture.failedFuture(new IllegalStateException("quota"));
+    }).get());
+
+    assertTrue(e.getCause() instanceof IllegalStateException);
+    assertEquals(2, attempts.get());
+  }
+
+  @Test
+  public void circuitOpensAfterRepeatedFailures() throws Exception {
+    var guard = new EndpointGuard(QuotaScheduler.Endpoint.VIDEOS);
+    var attempts = new AtomicInteger();
+
+    for (int i = 0; i < EndpointGuard.FAILURES_TO_OPEN; i++) {
+      assertThrows(ExecutionException.class, () -> guard.call(sending -> {
+        attempts.incrementAndGet();
+        return CompletableFuture.failedFuture(new IOException("down"));
+      }).get());
+    }
+    assertEquals(EndpointGuard.State.OPEN, guard.getState()); //the breaker is updated before get() returns
+    int attemptsWhenOpened = attempts.get();
+
+    var e = assertThrows(ExecutionException.class, () -> guard.call(sending -> {
+      attempts.incrementAndGet();
+      return CompletableFuture.completedFuture(new FakeResponse(200));
+    }).get());
+    assertTrue(e.getCause() instanceof IllegalStateException);
+    assertEquals(attemptsWhenOpened, attempts.get()); //failed without calling
+  }
+
+  @Test
+  public void quotaRejectionsDoNotOpenTheCircuit() throws Exception {
+    var guard = new EndpointGuard(QuotaScheduler.Endpoint.VIDEOS);
+
+    for (int i = 0; i < 2 * EndpointGuard.FAILURES_TO_OPEN; i++) {
+      assertThrows(ExecutionException.class, () -> guard.call(
+          sending -> CompletableFuture.failedFuture(new IllegalStateException("quota"))).get());
+    }
+    assertEquals(EndpointGuard.State.CLOSED, guard.getState());
+    assertEquals(200, guard.call(sending -> CompletableFuture.completedFuture(new FakeResponse(200))).get().statusCode());
+  }
+
+  @Test
+  public void serverErrorOfTheHedgeDoesNotBeatASlowSuccess() throws Exception {
+    var guard = new EndpointGuard(QuotaScheduler.Endpoint.VIDEOS);
+    for (int i = 0; i < EndpointGuard.MIN_SAMPLES_FOR_HEDGE; i++) { //fast calls, so the p95 is tiny
+      guard.call(sending -> CompletableFuture.completedFuture(new FakeResponse(200))).get();
+    }
+    var slow = new CompletableFuture<HttpResponse<String>>();
+    var attempts = new AtomicInteger();
+
+    var result = guard.call(sending -> {
+      sending.run();
+      return attempts.incrementAndGet() == 1 ? slow : CompletableFuture.completedFuture(new FakeResponse(503));
+    });
+    for (int i = 0; i < 500 && guard.getHedgeCount() == 0; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(1L, guard.getHedgeCount());
+    assertEquals(2, attempts.get());
+    assertFalse(result.isDone()); //the first attempt is still running
+
+    slow.complete(new FakeResponse(200));
+    assertEquals(200, result.get().statusCode());
+  }
+
+  @Test
+  public void searchesAreNotHedged() throws Exception {
+    var guard = new EndpointGuard(QuotaScheduler.Endpoint.SEARCH);
+    for (int i = 0; i < EndpointGuard.MIN_SAMPLES_FOR_HEDGE; i++) {
+      guard.call(sending -> CompletableFuture.completedFuture(new FakeResponse(200))).get();
+    }
+    var slow = new CompletableFuture<HttpResponse<String>>();
+    var attempts = new AtomicInteger();
+
+    var result = guard.call(sending -> {
+      sending.run();
+      attempts.incrementAndGet();
+      return slow;
+    });
+    Thread.sleep(100);
+    slow.complete(new FakeResponse(200));
+    assertEquals(200, result.get().statusCode());
+    assertEquals(0L, guard.getHedgeCount());
+    assertEquals(1, attempts.get());
+  }
+
+  @Test
+  public void waitingForQuotaIsNotLatency() throws Exception {
+    var guard = new EndpointGuard(QuotaScheduler.Endpoint.VIDEOS);
+    for (int i = 0; i < EndpointGuard.MIN_SAMPLES_FOR_HEDGE; i++) { //50 ms in the queue, then a fast answer
+      guard.call(sending -> CompletableFuture.supplyAsync(() -> {
+        sending.run();
+        return (HttpResponse<String>) new FakeResponse(200);
+      }, CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS))).get();
+    }
+
+    assertTrue(guard.getP95Latency() < TimeUnit.MILLISECONDS.toNanos(50), guard.getP95Latency() + " ns");
+  }
+
+  private static class FakeResponse implements HttpResponse<String> {
+    private final int status;
+
+    FakeResponse(int status) {
+      this.status = status;
+    }
+
+    @Override
+    public int statusCode() {
+      return status;
+    }
+
+    @Override
+    public HttpRequest request() {
+      return HttpRequest.newBuilder(URI.create("https://youtube.googleapis.com/youtube/v3/videos?")).build();
+    }
+
+    @Override
+    public Optional<HttpResponse<String>> previousResponse() {
+      return Optional.empty();
+    }
+
+    @Override
+    public HttpHeaders headers() {
+      return HttpHeaders.of(Map.of(), (a, b) -> true);
+    }
+
+    @Override
+    public String body() {
+      return "{}";
+    }
+
+    @Override
+    public Optional<SSLSession> sslSession() {
+      return Optional.empty();
+    }
+
+    @Override
+    public URI uri() {
+      return request().uri();
+    }
+
+    @Override
+    public HttpClient.Version version() {
+      return HttpClient.Version.HTTP_2;
+    }
+  }
+}
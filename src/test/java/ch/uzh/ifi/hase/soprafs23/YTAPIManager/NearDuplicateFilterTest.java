@@ -0,0 +1,108 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+
+import ch.uzh.ifi.hase.soprafs23.entity.Comment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class NearDuplicateFilterTest {
+
+  private static List<Comment> fixture() throws IOException {
+    return CommentStreamDecoder.decode(APIController.readFile("src/main/resources/CommentsByVideoIdJson.txt"),
+        CommentHarvester.MINCHARS);
+  }
+
+  private static Comment withContent(Comment c, String content) {
+    return new Comment(c.commentId + "-copy", c.videoId, content, c.author, c.likes, c.date);
+  }
+
+  @Test
+  public void keepsDistinctComments() throws IOException {
+    var comments = fixture();
+    assertEquals(comments, NearDuplicateFilter.filter(comments));
+  }
+
+  @Test
+  public void dropsCopiesAndNearCopies() throws IOException {
+    var comments = fixture();
+    List<Comment> withCopies = new ArrayList<>(comments);
+    for (var c : comments) {
+      withCopies.add(withContent(c, c.content));
+      withCopies.add(withContent(c, c.content.toUpperCase() + "!!<br>"));
+    }
+
+    var kept = NearDuplicateFilter.filter(withCopies);
+
+    assertEquals(comments.size(), kept.size());
+    for (int i = 0; i < comments.size(); i++) {
+      assertSame(comments.get(i), kept.get(i)); //the first, more relevant one stays
+    }
+  }
+
+  @Test
+  public void similarCommentsAreCloserThanOthers() throws IOException {
+    var comments = fixture();
+    String text = comments.get(0).content;
+    var original = NearDuplicateFilter.signature(text);
+    var edited = NearDuplicateFilter.signature(text.substring(0, text.length() - 3) + "wow");
+    var other = NearDuplicateFilter.signature(comments.get(1).content);
+
+    assertTrue(NearDuplicateFilter.similarity(original, edited) >= NearDuplicateFilter.SIMILARITY);
+    assertTrue(NearDuplicateFilter.similarity(original, other) < NearDuplicateFilter.SIMILARITY);
+  }
+
+  @Test
+  public void dropsCommentsWithAFewEditedWords() throws IOException {
+    var comments = fixture();
+    for (int edits = 1; edits <= 2; edits++) {
+      List<Comment> withEdits = new ArrayList<>(comments);
+      List<Comment> nearCopies = new ArrayList<>();
+      for (var c : comments) {
+        String[] words = c.content.split(" ");
+        if (words.length < 12) {
+          continue;
+        }
+        for (int e = 0; e < edits; e++) {
+          words[words.length * (e + 1) / (edits + 1)] = "edited" + e;
+        }
+        var edited = withContent(c, String.join(" ", words));
+        withEdits.add(edited);
+        if (NearDuplicateFilter.similarity(NearDuplicateFilter.signature(c.content),
+            NearDuplicateFilter.signature(edited.content)) >= NearDuplicateFilter.SIMILARITY) {
+          nearCopies.add(edited);
+        }
+      }
+      assertTrue(edits > 1 || nearCopies.size() > 40); //one word of a long comment is a small change
+
+      var kept = NearDuplicateFilter.filter(withEdits);
+      for (var c : nearCopies) {
+        assertFalse(kept.contains(c), "not dropped: " + c.content);
+      }
+      assertTrue(kept.containsAll(comments));
+      assertEquals(withEdits.size() - nearCopies.size(), kept.size());
+    }
+  }
+
+  @Test
+  public void timePerVideo() throws IOException { //prints the time only, a shared CI machine is too noisy to assert it
+    var comments = fixture(); //one video: the 100 most relevant comments, filtered by length
+    for (int i = 0; i < 2000; i++) { //warm up the JIT
+      NearDuplicateFilter.filter(comments);
+    }
+    int runs = 2000;
+    long start = System.nanoTime();
+    for (int i = 0; i < runs; i++) {
+      NearDuplicateFilter.filter(comments);
+    }
+    double millisPerVideo = (System.nanoTime() - start) / 1e6 / runs;
+    System.out.println("NearDuplicateFilter: " + millisPerVideo + " ms per video (" + comments.size() + " comments)");
+  }
+}
@@ -0,0 +1,89 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.util.Pair;
+
+import ch.uzh.ifi.hase.soprafs23.entity.Comment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class PlaylistWalkerTest {
+
+  //a playlist of three pages with two videos each, remembers the page tokens it was asked for
+  private static class FakePlaylist implements PlaylistWalker.PageFetcher {
+    final List<String> tokens = new ArrayList<>();
+
+    @Override
+    public String fetch(String playlistId, String pageToken) {
+      tokens.add(pageToken);
+      int page = pageToken == null ? 1 : Integer.parseInt(pageToken.substring(1));
+      String next = page < 3 ? "\"p" + (page + 1) + "\"" : "null";
+      return "{\"nextPageToken\": " + next + ", \"items\": [" + item(playlistId + "-" + page + "a") + ", "
+          + item(playlistId + "-" + page + "b") + "]}";
+    }
+
+    private static String item(String videoId) {
+      return "{\"snippet\": {\"title\": \"" + videoId + "\", \"resourceId\": {\"videoId\": \"" + videoId + "\"},"
+          + " \"thumbnails\": {\"default\": {\"url\": \"d\"}, \"medium\": {\"url\": \"m\"}, \"high\": {\"url\": \"h\"}}}}";
+    }
+  }
+
+  //every video of the page qualifies
+  private static List<Pair<VideoList.Item, List<Comment>>> everyVideo(VideoList page) {
+    List<Pair<VideoList.Item, List<Comment>>> videos = new ArrayList<>();
+    for (var item : page.items) {
+      videos.add(Pair.of(item, new ArrayList<>()));
+    }
+    return videos;
+  }
+
+  private static List<String> videoIds(List<Pair<VideoList.Item, List<Comment>>> videos) {
+    List<String> ids = new ArrayList<>();
+    for (var video : videos) {
+      ids.add(video.getFirst().id.videoId);
+    }
+    return ids;
+  }
+
+  @Test
+  public void nextHarvestContinuesOnTheNextPage() throws Exception {
+    var playlist = new FakePlaylist();
+    var walker = new PlaylistWalker("list", playlist);
+
+    assertEquals(List.of("list-1a", "list-1b"), videoIds(walker.next(PlaylistWalkerTest::everyVideo, 2)));
+    assertEquals(List.of("list-2a", "list-2b"), videoIds(walker.next(PlaylistWalkerTest::everyVideo, 2)));
+    //the last page and then the first one again
+    assertEquals(List.of("list-3a", "list-3b", "list-1a", "list-1b"),
+        videoIds(walker.next(PlaylistWalkerTest::everyVideo, 3)));
+    assertEquals(Arrays.asList(null, "p2", "p3", null), playlist.tokens);
+  }
+
+  @Test
+  public void readsThePlaylistAtMostOncePerHarvest() throws Exception {
+    var playlist = new FakePlaylist();
+    var walker = new PlaylistWalker("list", playlist);
+
+    assertEquals(6, walker.next(PlaylistWalkerTest::everyVideo, 100).size());
+    assertEquals(Arrays.asList(null, "p2", "p3"), playlist.tokens);
+  }
+
+  @Test
+  public void playlistWithoutQualifyingVideosFails() {
+    var playlist = new FakePlaylist();
+    var walker = new PlaylistWalker("list", playlist);
+
+    assertThrows(IllegalStateException.class, () -> walker.next(page -> new ArrayList<>(), 2));
+    assertEquals(3, playlist.tokens.size());
+  }
+
+  @Test
+  public void privatePlaylistFails() {
+    var walker = new PlaylistWalker("list", (id, token) -> "{}");
+    assertThrows(IllegalStateException.class, () -> walker.next(PlaylistWalkerTest::everyVideo, 2));
+  }
+}
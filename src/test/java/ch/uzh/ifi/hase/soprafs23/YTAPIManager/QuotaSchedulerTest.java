@@ -0,0 +1,71 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class QuotaSchedulerTest {
+
+  @Test
+  public void chargesEndpointCost() throws Exception {
+    var scheduler = new QuotaScheduler(1000, 10, 100);
+
+    scheduler.submit(QuotaScheduler.Endpoint.SEARCH, CallPriority.INTERACTIVE, () -> CompletableFuture.completedFuture("a")).get();
+    scheduler.submit(QuotaScheduler.Endpoint.of("https://youtube.googleapis.com/youtube/v3/videos?&id=x"),
+        CallPriority.INTERACTIVE, () -> CompletableFuture.completedFuture("b")).get();
+
+    assertEquals(101L, scheduler.getUsedUnits());
+    assertEquals(899L, scheduler.getRemainingUnits());
+  }
+
+  @Test
+  public void backgroundCallsAreRejectedFirst() throws Exception {
+    var scheduler = new QuotaScheduler(1000, 10, 100);
+    for (int i = 0; i < 7; i++) { //700 units used, 300 left
+      scheduler.submit(QuotaScheduler.Endpoint.SEARCH, CallPriority.INTERACTIVE, () -> CompletableFuture.completedFuture("")).get();
+    }
+
+    var warming = scheduler.submit(QuotaScheduler.Endpoint.VIDEOS, CallPriority.WARMING, () -> CompletableFuture.completedFuture(""));
+    var prefetch = scheduler.submit(QuotaScheduler.Endpoint.VIDEOS, CallPriority.PREFETCH, () -> CompletableFuture.completedFuture(""));
+    var interactive = scheduler.submit(QuotaScheduler.Endpoint.VIDEOS, CallPriority.INTERACTIVE, () -> CompletableFuture.completedFuture(""));
+
+    var e = assertThrows(ExecutionException.class, () -> warming.get());
+    assertTrue(e.getCause() instanceof IllegalStateException);
+    assertEquals("", prefetch.get());
+    assertEquals("", interactive.get());
+    assertEquals(1L, scheduler.getRejectedCount());
+    assertEquals(702L, scheduler.getUsedUnits());
+  }
+
+  @Test
+  public void interactiveCallsAreStartedFirst() throws Exception {
+    var scheduler = new QuotaScheduler(1000, 1, 20);
+    List<String> started = Collections.synchronizedList(new ArrayList<>());
+    List<CompletableFuture<String>> calls = new ArrayList<>();
+
+    calls.add(scheduler.submit(QuotaScheduler.Endpoint.VIDEOS, CallPriority.INTERACTIVE, () -> start(started, "first")));
+    calls.add(scheduler.submit(QuotaScheduler.Endpoint.VIDEOS, CallPriority.WARMING, () -> start(started, "warming")));
+    calls.add(scheduler.submit(QuotaScheduler.Endpoint.VIDEOS, CallPriority.PREFETCH, () -> start(started, "prefetch")));
+    calls.add(scheduler.submit(QuotaScheduler.Endpoint.VIDEOS, CallPriority.INTERACTIVE, () -> start(started, "interactive")));
+    assertFalse(calls.get(3).isDone()); //the bucket allows only one call at once
+    for (var c : calls) {
+      c.get();
+    }
+
+    assertEquals(List.of("first", "interactive", "prefetch", "warming"), started);
+  }
+
+  private static CompletableFuture<String> start(List<String> started, String name) {
+    started.add(name);
+    return CompletableFuture.completedFuture(name);
+  }
+}
@@ -0,0 +1,99 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+
+public class RelatedVideoGraphTest {
+
+  private static VideoList searchResult() throws IOException {
+    return APIController.fromJsonToVideoList(APIController.readFile("src/main/resources/VideoByQueryJson.txt"));
+  }
+
+  private static String noCalls(String videoId, Language language) {
+    throw new IllegalStateException("No related videos call expected");
+  }
+
+  private static Path newGraphFile() throws IOException {
+    return Files.createTempDirectory("graph").resolve("graph.dat");
+  }
+
+  @Test
+  public void collectsKnownVideosWithoutExpanding() throws Exception {
+    var graph = new RelatedVideoGraph(newGraphFile(), RelatedVideoGraph.DEFAULT_BREADTH, RelatedVideoGraphTest::noCalls);
+    var seeds = graph.addQueryResult("cats", Language.ENGLISH, searchResult());
+
+    List<VideoList.Item> videos = graph.collect(seeds, 100, 0, Language.ENGLISH);
+
+    assertEquals(seeds.size(), videos.size());
+    var ids = new HashSet<String>();
+    for (var v : videos) {
+      assertTrue(seeds.contains(v.id.videoId));
+      assertTrue(ids.add(v.id.videoId));
+    }
+    for (String id : seeds) {
+      assertFalse(graph.isExpanded(id));
+    }
+  }
+
+  @Test
+  public void queryIsNotSearchedAgainAfterRestart() throws Exception {
+    Path file = newGraphFile();
+    var graph = new RelatedVideoGraph(file, RelatedVideoGraph.DEFAULT_BREADTH, RelatedVideoGraphTest::noCalls);
+    var seeds = graph.addQueryResult("Cats ", Language.ENGLISH, searchResult());
+
+    var reloaded = new RelatedVideoGraph(file, RelatedVideoGraph.DEFAULT_BREADTH, RelatedVideoGraphTest::noCalls);
+
+    assertEquals(graph.size(), reloaded.size());
+    assertEquals(seeds, reloaded.seedsForQuery("cats", Language.ENGLISH)); //known, so no search call
+    var video = reloaded.collect(seeds, 1, 0, Language.ENGLISH).get(0);
+    var original = searchResult().items.stream().filter(i -> i.id.videoId.equals(video.id.videoId)).findFirst().get();
+    assertEquals(original.snippet.title, video.snippet.title);
+    assertEquals(original.snippet.thumbnails.medium.url, video.snippet.thumbnails.medium.url);
+  }
+
+  @Test
+  public void failedExpansionIsTriedAgain() throws Exception {
+    Path file = newGraphFile();
+    var errors = new int[1];
+    RelatedVideoGraph.RelatedFetcher failing = (id, language) -> {
+      errors[0]++;
+      if (errors[0] % 2 == 0) {
+        throw new IllegalStateException("quota exhausted");
+      }
+      return "{\"error\": {\"code\": 403}}";
+    };
+    var graph = new RelatedVideoGraph(file, RelatedVideoGraph.DEFAULT_BREADTH, failing);
+    var seeds = graph.addQueryResult("cats", Language.ENGLISH, searchResult());
+
+    graph.collect(seeds, 100, 2, Language.ENGLISH);
+    assertEquals(2, errors[0]);
+    for (String id : seeds) {
+      assertFalse(graph.isExpanded(id));
+    }
+    var reloaded = new RelatedVideoGraph(file, RelatedVideoGraph.DEFAULT_BREADTH, failing);
+    for (String id : seeds) {
+      assertFalse(reloaded.isExpanded(id));
+    }
+  }
+
+  @Test
+  public void emptyAnswerMakesALeaf() throws Exception {
+    Path file = newGraphFile();
+    var graph = new RelatedVideoGraph(file, RelatedVideoGraph.DEFAULT_BREADTH, (id, language) -> "{\"items\": []}");
+    var seeds = graph.addQueryResult("cats", Language.ENGLISH, searchResult());
+
+    graph.collect(seeds.subList(0, 1), 100, 1, Language.ENGLISH);
+    assertTrue(graph.isExpanded(seeds.get(0)));
+    assertTrue(new RelatedVideoGraph(file, RelatedVideoGraph.DEFAULT_BREADTH, RelatedVideoGraphTest::noCalls)
+        .isExpanded(seeds.get(0)));
+  }
+}
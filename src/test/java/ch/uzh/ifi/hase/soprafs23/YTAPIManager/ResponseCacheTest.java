@@ -0,0 +1,91 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+public class ResponseCacheTest {
+
+  private static final String URL = "https://youtube.googleapis.com/youtube/v3/videos?&part=statistics&id=5yx6BWlEVcY";
+
+  private static String fixture(String name) throws Exception {
+    return new String(Files.readAllBytes(Paths.get("src/main/resources/" + name)), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void okResponseIsStoredWithItsETag() throws Exception {
+    var cache = new ResponseCache(Files.createTempDirectory("cache"), 16, 16);
+    String body = fixture("VideoInfoJson.txt");
+
+    assertEquals(body, cache.store(URL, null, 200, body, "\"v1\""));
+    var entry = cache.get(URL);
+    assertEquals(body, entry.body);
+    assertEquals("\"v1\"", entry.etag);
+    assertTrue(entry.isFresh(Duration.ofHours(1)));
+  }
+
+  @Test
+  public void notModifiedRevalidatesTheCachedEntry() throws Exception {
+    var cache = new ResponseCache(Files.createTempDirectory("cache"), 16, 16);
+    String body = fixture("VideoInfoJson.txt");
+    var expired = new ResponseCache.Entry(body, "\"v1\"", 0);
+    cache.put(URL, expired);
+    assertFalse(cache.get(URL).isFresh(Duration.ofHours(1)));
+
+    assertEquals(body, cache.store(URL, expired, 304, "", null));
+    var entry = cache.get(URL);
+    assertEquals(body, entry.body);
+    assertEquals("\"v1\"", entry.etag);
+    assertTrue(entry.isFresh(Duration.ofHours(1)));
+    assertEquals(1, cache.getRevalidatedCount());
+  }
+
+  @Test
+  public void errorResponseIsNotCached() throws Exception {
+    var cache = new ResponseCache(Files.createTempDirectory("cache"), 16, 16);
+    String error = "{\"error\": {\"code\": 403}}";
+
+    assertEquals(error, cache.store(URL, null, 403, error, null));
+    assertNull(cache.get(URL));
+    assertEquals(0, cache.getDiskEntryCount());
+  }
+
+  @Test
+  public void entriesSurviveARestart() throws Exception {
+    Path directory = Files.createTempDirectory("cache");
+    String body = fixture("VideoInfoJson.txt");
+    new ResponseCache(directory, 16, 16).store(URL, null, 200, body, "\"v1\"");
+
+    var restarted = new ResponseCache(directory, 16, 16);
+    var entry = restarted.get(URL);
+    assertNotNull(entry);
+    assertEquals(body, entry.body);
+    assertEquals("\"v1\"", entry.etag);
+    assertNull(restarted.get(URL + "&pageToken=next"));
+  }
+
+  @Test
+  public void diskKeepsTheMostRecentlyWrittenEntries() throws Exception {
+    Path directory = Files.createTempDirectory("cache");
+    var cache = new ResponseCache(directory, 1, 10);
+    for (int i = 0; i < 25; i++) {
+      cache.put(URL + i, new ResponseCache.Entry("body" + i, null, System.currentTimeMillis()));
+      Thread.sleep(5); //distinct modification times
+    }
+
+    assertTrue(cache.getDiskEntryCount() <= 10);
+    var restarted = new ResponseCache(directory, 1, 10);
+    assertEquals("body24", restarted.get(URL + 24).body);
+    assertNull(restarted.get(URL + 0));
+  }
+}
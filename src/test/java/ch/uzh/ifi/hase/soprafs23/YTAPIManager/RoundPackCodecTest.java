@@ -0,0 +1,101 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import ch.uzh.ifi.hase.soprafs23.game.Hand;
+import ch.uzh.ifi.hase.soprafs23.game.VideoData;
+
+public class RoundPackCodecTest {
+  private static final String GAME_DATA = "src/main/resources/GameData1.txt";
+
+  @Test
+  public void gameDataConvertsLosslessly() throws Exception {
+    var gameData = APIController.readFromFile(GAME_DATA);
+    var pack = new RoundPack("jrTMMG0zJyI", gameData.getFirst(), gameData.getSecond());
+
+    byte[] encoded = RoundPackCodec.encode(pack);
+    var decoded = RoundPackCodec.decode(ByteBuffer.wrap(encoded));
+
+    assertEquals("jrTMMG0zJyI", decoded.videoId);
+    assertSameVideoData(gameData.getFirst(), decoded.videoData);
+    assertSameHands(gameData.getSecond(), decoded.hands);
+    assertTrue(encoded.length < APIController.readFile(GAME_DATA).length());
+  }
+
+  @Test
+  public void sharedCommentsAreStoredOnce() throws Exception {
+    var gameData = APIController.readFromFile(GAME_DATA);
+    List<RoundPack> packs = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      packs.add(new RoundPack("video" + i, gameData.getFirst(), gameData.getSecond()));
+    }
+
+    int single = RoundPackCodec.encode(packs.get(0)).length;
+    byte[] encoded = RoundPackCodec.encode(packs);
+    assertTrue(encoded.length < 2 * single);
+
+    var view = RoundPackCodec.view(ByteBuffer.wrap(encoded));
+    assertEquals(RoundPackCodec.VERSION_2, view.getVersion());
+    assertEquals(10, view.size());
+    for (int i = 0; i < 10; i++) {
+      var decoded = view.get(i);
+      assertEquals("video" + i, decoded.videoId);
+      assertSameHands(gameData.getSecond(), decoded.hands);
+    }
+  }
+
+  @Test
+  public void unknownVersionIsRejected() {
+    var data = ByteBuffer.allocate(3 * Integer.BYTES).putInt(RoundPackCodec.MAGIC).putInt(1).putInt(0);
+    var e = assertThrows(IllegalStateException.class, () -> RoundPackCodec.view(data));
+    assertTrue(e.getMessage().contains("version 1"));
+  }
+
+  @Test
+  public void nullsSurvive() {
+    var pack = new RoundPack(null, new VideoData(null, null, null, null, null, null), List.of(new Hand()));
+
+    var decoded = RoundPackCodec.decode(ByteBuffer.wrap(RoundPackCodec.encode(pack)));
+
+    assertEquals(null, decoded.videoId);
+    assertSameVideoData(pack.videoData, decoded.videoData);
+    assertSameHands(pack.hands, decoded.hands);
+  }
+
+  private static void assertSameVideoData(VideoData expected, VideoData actual) {
+    assertEquals(expected.views, actual.views);
+    assertEquals(expected.likes, actual.likes);
+    assertEquals(expected.title, actual.title);
+    assertEquals(expected.thumbnail, actual.thumbnail);
+    assertEquals(expected.releaseDate, actual.releaseDate);
+    assertEquals(expected.videoLength, actual.videoLength);
+  }
+
+  private static void assertSameHands(List<Hand> expected, List<Hand> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int h = 0; h < expected.size(); h++) {
+      var expectedCards = expected.get(h).getComments();
+      var cards = actual.get(h).getComments();
+      assertEquals(expectedCards.size(), cards.size());
+      for (int i = 0; i < cards.size(); i++) {
+        var e = expectedCards.get(i);
+        var c = cards.get(i);
+        assertEquals(e.getSecond(), c.getSecond());
+        assertEquals(e.getFirst().commentId, c.getFirst().commentId);
+        assertEquals(e.getFirst().videoId, c.getFirst().videoId);
+        assertEquals(e.getFirst().content, c.getFirst().content);
+        assertEquals(e.getFirst().author, c.getFirst().author);
+        assertEquals(e.getFirst().likes, c.getFirst().likes);
+        assertEquals(e.getFirst().date, c.getFirst().date);
+      }
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+public class RoundPackCorpusTest {
+
+  @Test
+  public void drawsEveryPackOnceBeforeRepeating() throws Exception {
+    var gameData = APIController.readFromFile("src/main/resources/GameData1.txt");
+    var builder = new RoundPackCorpusBuilder();
+    for (int i = 0; i < 10; i++) {
+      assertTrue(builder.add(new RoundPack("video" + i, gameData.getFirst(), gameData.getSecond())));
+    }
+    assertFalse(builder.add(new RoundPack("video3", gameData.getFirst(), gameData.getSecond())));
+
+    Path file = Files.createTempFile("corpus", ".ytrp");
+    try {
+      builder.write(file);
+      var corpus = RoundPackCorpus.open(file);
+      assertEquals(10, corpus.size());
+
+      var deck = corpus.newDeck(42);
+      Set<String> drawn = new HashSet<>();
+      for (int i = 0; i < 10; i++) {
+        assertTrue(drawn.add(deck.draw().videoId));
+      }
+      assertEquals(0, deck.remaining());
+      assertTrue(drawn.contains(deck.draw().videoId)); //starts over
+
+      var a = corpus.newDeck(7);
+      var b = corpus.newDeck(7);
+      for (int i = 0; i < 10; i++) {
+        assertEquals(a.draw().videoId, b.draw().videoId); //same seed, same order
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void gameDataSurvivesTheCorpus() throws Exception {
+    var gameData = APIController.readFromFile("src/main/resources/GameData1.txt");
+    var builder = new RoundPackCorpusBuilder();
+    assertTrue(builder.addGameDataFile("src/main/resources/GameData1.txt"));
+
+    Path file = Files.createTempFile("corpus", ".ytrp");
+    try {
+      builder.write(file);
+      var pack = RoundPackCorpus.open(file).get(0);
+
+      var expected = gameData.getFirst();
+      assertEquals(expected.views, pack.videoData.views);
+      assertEquals(expected.likes, pack.videoData.likes);
+      assertEquals(expected.title, pack.videoData.title);
+      assertEquals(expected.thumbnail, pack.videoData.thumbnail);
+      assertEquals(expected.releaseDate, pack.videoData.releaseDate);
+      assertEquals(expected.videoLength, pack.videoData.videoLength);
+      assertEquals(gameData.getSecond().size(), pack.hands.size());
+      for (int h = 0; h < pack.hands.size(); h++) {
+        var expectedComments = gameData.getSecond().get(h).getComments();
+        var comments = pack.hands.get(h).getComments();
+        assertEquals(expectedComments.size(), comments.size());
+        for (int i = 0; i < comments.size(); i++) {
+          var e = expectedComments.get(i);
+          var c = comments.get(i);
+          assertEquals(e.getSecond(), c.getSecond());
+          assertEquals(e.getFirst().commentId, c.getFirst().commentId);
+          assertEquals(e.getFirst().videoId, c.getFirst().videoId);
+          assertEquals(e.getFirst().content, c.getFirst().content);
+          assertEquals(e.getFirst().author, c.getFirst().author);
+          assertEquals(e.getFirst().likes, c.getFirst().likes);
+          assertEquals(e.getFirst().date, c.getFirst().date);
+        }
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
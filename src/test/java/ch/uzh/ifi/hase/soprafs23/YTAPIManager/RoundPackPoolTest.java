@@ -0,0 +1,58 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RoundPackPoolTest {
+
+  private static void awaitReady(RoundPackPool pool, String key, int ready) throws InterruptedException {
+    for (int i = 0; i < 500 && pool.getReadyCount(key, Language.ENGLISH) < ready; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(ready, pool.getReadyCount(key, Language.ENGLISH));
+  }
+
+  @Test
+  public void refillsWithTheLoaderOfTheFirstTake() throws Exception {
+    var pool = new RoundPackPool(1, 4, 32, Duration.ofMinutes(1));
+    var first = new AtomicInteger();
+    var later = new AtomicInteger();
+    List<RoundPack> firstHarvest = new ArrayList<>();
+
+    pool.take("list", Language.ENGLISH, () -> {
+      first.incrementAndGet();
+      return firstHarvest;
+    });
+    awaitReady(pool, "list", 1);
+
+    var taken = pool.take("list", Language.ENGLISH, () -> {
+      later.incrementAndGet();
+      return new ArrayList<>();
+    });
+    assertSame(firstHarvest, taken);
+    awaitReady(pool, "list", 1);
+    assertEquals(3, first.get()); //the miss and two refills
+    assertEquals(0, later.get());
+  }
+
+  @Test
+  public void settingsOfTheLoaderAreInTheKey() {
+    var small = new HarvestSettings("list", "q", Language.ENGLISH, new CommentHarvester(), 4);
+    var large = new HarvestSettings("list", "q", Language.ENGLISH, new CommentHarvester(), 8);
+    var slow = new HarvestSettings("list", "q", Language.ENGLISH, new CommentHarvester(1, Duration.ofSeconds(30)), 4);
+
+    assertEquals(small.playlistKey(), new HarvestSettings("list", "q", Language.ENGLISH, new CommentHarvester(), 4)
+        .playlistKey());
+    assertFalse(small.playlistKey().equals(large.playlistKey()));
+    assertFalse(small.searchKey().equals(slow.searchKey()));
+    assertFalse(small.relatedKey().equals(small.searchKey()));
+  }
+}
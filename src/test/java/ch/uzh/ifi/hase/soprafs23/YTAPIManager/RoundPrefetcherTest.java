@@ -0,0 +1,69 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.util.Pair;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ch.uzh.ifi.hase.soprafs23.game.Hand;
+import ch.uzh.ifi.hase.soprafs23.game.VideoData;
+
+public class RoundPrefetcherTest {
+
+  //numbers its rounds and remembers how many loads ran at the same time
+  private static class CountingLoader implements RoundLoader {
+    final AtomicInteger loads = new AtomicInteger();
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+
+    @Override
+    public Pair<VideoData, List<Hand>> load() throws InterruptedException {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(50);
+        int round = loads.incrementAndGet();
+        return Pair.of(new VideoData(null, null, "round" + round, null, null, null), new ArrayList<>());
+      } finally {
+        running.decrementAndGet();
+      }
+    }
+  }
+
+  private static void awaitLoads(CountingLoader loader, int loads) throws InterruptedException {
+    for (int i = 0; i < 500 && loader.loads.get() < loads; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(loads, loader.loads.get());
+  }
+
+  @Test
+  public void firstRoundIsLoadedBeforeThePrefetchStarts() throws Exception {
+    var loader = new CountingLoader();
+    var prefetcher = new RoundPrefetcher(loader, 1);
+
+    assertEquals("round1", prefetcher.take().getFirst().title);
+    assertEquals(1, prefetcher.getPreparedCount());
+    awaitLoads(loader, 2);
+    assertEquals("round2", prefetcher.take().getFirst().title);
+    awaitLoads(loader, 3);
+    assertEquals(1, loader.maxRunning.get());
+    prefetcher.close();
+  }
+
+  @Test
+  public void closedPrefetcherStartsNothing() throws Exception {
+    var loader = new CountingLoader();
+    var prefetcher = new RoundPrefetcher(loader, 0);
+
+    prefetcher.take();
+    assertEquals(0, prefetcher.getPreparedCount());
+    prefetcher.close();
+    assertThrows(IllegalStateException.class, prefetcher::take);
+    assertEquals(1, loader.loads.get());
+  }
+}
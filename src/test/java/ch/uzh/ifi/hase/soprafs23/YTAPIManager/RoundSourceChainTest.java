@@ -0,0 +1,149 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+public class RoundSourceChainTest {
+
+  private static final HarvestSettings SETTINGS = new HarvestSettings("list", "query", Language.ENGLISH, null, 4);
+
+  private static class FakeSource implements RoundSource {
+    final String name;
+    final int cost;
+    final long latency;
+    final boolean followsSettings;
+    List<RoundPack> harvest = List.of(new RoundPack("video", null, null));
+    RuntimeException failure;
+    int loads = 0;
+    int estimates = 0;
+
+    FakeSource(String name, int cost, long latency, boolean followsSettings) {
+      this.name = name;
+      this.cost = cost;
+      this.latency = latency;
+      this.followsSettings = followsSettings;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public int estimateQuotaCost(HarvestSettings settings) {
+      estimates++;
+      return cost;
+    }
+
+    @Override
+    public long getExpectedLatencyMillis() {
+      return latency;
+    }
+
+    @Override
+    public boolean followsSettings() {
+      return followsSettings;
+    }
+
+    @Override
+    public List<RoundPack> load(HarvestSettings settings) {
+      loads++;
+      if (failure != null) {
+        throw failure;
+      }
+      return harvest;
+    }
+  }
+
+  @Test
+  public void triesCheapestFirstAndCorpusLast() {
+    var corpus = new FakeSource("corpus", 0, 0, false);
+    var search = new FakeSource("search", 100, 2000, true);
+    var playlist = new FakeSource("playlist", 5, 2000, true);
+    var chain = new RoundSourceChain(List.of(corpus, search, playlist), new HashMap<>());
+
+    assertEquals(List.of(playlist, search, corpus), chain.order(SETTINGS));
+  }
+
+  @Test
+  public void failingSourceFallsBehind() throws Exception {
+    var playlist = new FakeSource("playlist", 5, 2000, true);
+    var search = new FakeSource("search", 100, 2000, true);
+    playlist.failure = new IllegalStateException("down");
+    var chain = new RoundSourceChain(List.of(playlist, search), new HashMap<>());
+
+    assertSame(search.harvest, chain.load(SETTINGS));
+    assertEquals(1, playlist.loads);
+    assertEquals(List.of(search, playlist), chain.order(SETTINGS));
+  }
+
+  @Test
+  public void emptySourceIsSkippedWithoutPenalty() throws Exception {
+    var cache = new FakeSource("cache", 0, 1, true);
+    var playlist = new FakeSource("playlist", 5, 2000, true);
+    cache.harvest = null;
+    var chain = new RoundSourceChain(List.of(playlist, cache), new HashMap<>());
+
+    assertSame(playlist.harvest, chain.load(SETTINGS));
+    assertEquals(List.of(cache, playlist), chain.order(SETTINGS));
+  }
+
+  @Test
+  public void firstFailureIsThrownIfNothingDelivers() {
+    var playlist = new FakeSource("playlist", 5, 2000, true);
+    var search = new FakeSource("search", 100, 2000, true);
+    playlist.failure = new IllegalArgumentException("private playlist");
+    search.failure = new IllegalStateException("quota");
+    var chain = new RoundSourceChain(new ArrayList<>(List.of(playlist, search)), new HashMap<>());
+
+    var e = assertThrows(IllegalArgumentException.class, () -> chain.load(SETTINGS));
+    assertEquals("private playlist", e.getMessage());
+    assertEquals(1, e.getSuppressed().length);
+  }
+
+  @Test
+  public void everySourceIsScoredOncePerOrder() {
+    List<FakeSource> sources = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      sources.add(new FakeSource("source" + i, 8 - i, 1000, true));
+    }
+    var chain = new RoundSourceChain(new ArrayList<>(sources), new HashMap<>());
+
+    assertSame(sources.get(7), chain.order(SETTINGS).get(0));
+    for (var source : sources) {
+      assertEquals(1, source.estimates);
+    }
+  }
+
+  @Test
+  public void cacheTakesOnlyHarvestsOfTheChosenSources() throws Exception {
+    var pool = new RoundPackPool(1, 4, 32, Duration.ofMinutes(1));
+    List<RoundPack> playlistHarvest = List.of(new RoundPack("playlist", null, null));
+    List<RoundPack> searchHarvest = List.of(new RoundPack("search", null, null));
+    pool.take(SETTINGS.playlistKey(), Language.ENGLISH, () -> playlistHarvest);
+    pool.take(SETTINGS.searchKey(), Language.ENGLISH, () -> searchHarvest);
+    for (int i = 0; i < 500 && (pool.getReadyCount(SETTINGS.playlistKey(), Language.ENGLISH) == 0
+        || pool.getReadyCount(SETTINGS.searchKey(), Language.ENGLISH) == 0); i++) {
+      Thread.sleep(10);
+    }
+
+    var queryGame = new CachedRoundSource(List.of(RoundSourceType.CACHE, RoundSourceType.QUERY), pool);
+    assertSame(searchHarvest, queryGame.load(SETTINGS));
+    var relatedGame = new CachedRoundSource(List.of(RoundSourceType.CACHE, RoundSourceType.RELATED), pool);
+    assertNull(relatedGame.load(SETTINGS));
+  }
+
+  @Test
+  public void needsASource() {
+    assertThrows(IllegalArgumentException.class, () -> RoundSourceChain.of(List.of()));
+  }
+}
@@ -0,0 +1,92 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightTest {
+
+  @Test
+  public void concurrentRequestsShareOneFetch() throws Exception {
+    var flight = new SingleFlight<String, String>();
+    var fetches = new AtomicInteger();
+    var response = new CompletableFuture<String>();
+
+    var first = flight.run("url", () -> {
+      fetches.incrementAndGet();
+      return response;
+    });
+    var second = flight.run("url", () -> {
+      fetches.incrementAndGet();
+      return CompletableFuture.completedFuture("other");
+    });
+    assertEquals(1, flight.getInFlightCount());
+
+    response.complete("body");
+    assertEquals("body", first.get());
+    assertEquals("body", second.get());
+    assertEquals(1, fetches.get());
+    assertEquals(2, flight.getCallCount());
+    assertEquals(1, flight.getCoalescedCount());
+    assertEquals(0, flight.getInFlightCount());
+  }
+
+  @Test
+  public void keyIsFreeAgainAfterTheFetch() throws Exception {
+    var flight = new SingleFlight<String, String>();
+    var fetches = new AtomicInteger();
+
+    for (int i = 0; i < 3; i++) {
+      flight.run("url", () -> CompletableFuture.completedFuture("body" + fetches.incrementAndGet())).get();
+    }
+    assertEquals(3, fetches.get());
+    assertEquals(0, flight.getCoalescedCount());
+  }
+
+  @Test
+  public void failureReachesEveryWaitingCaller() {
+    var flight = new SingleFlight<String, String>();
+    var response = new CompletableFuture<String>();
+
+    var first = flight.run("url", () -> response);
+    var second = flight.run("url", () -> CompletableFuture.completedFuture("other"));
+    response.completeExceptionally(new IllegalStateException("quota"));
+
+    for (var f : new CompletableFuture[] { first, second }) {
+      var e = assertThrows(ExecutionException.class, f::get);
+      assertTrue(e.getCause() instanceof IllegalStateException);
+      assertEquals("quota", e.getCause().getMessage());
+    }
+    assertEquals(0, flight.getInFlightCount());
+  }
+
+  @Test
+  public void fetchThrowingRightAwayFailsTheFuture() {
+    var flight = new SingleFlight<String, String>();
+
+    var f = flight.run("url", () -> {
+      throw new IllegalArgumentException("bad url");
+    });
+    var e = assertThrows(ExecutionException.class, f::get);
+    assertTrue(e.getCause() instanceof IllegalArgumentException);
+    assertEquals(0, flight.getInFlightCount());
+  }
+
+  @Test
+  public void cancellingOneCopyKeepsTheOthers() throws Exception {
+    var flight = new SingleFlight<String, String>();
+    var response = new CompletableFuture<String>();
+
+    var first = flight.run("url", () -> response);
+    var second = flight.run("url", () -> response);
+    first.cancel(true);
+    response.complete("body");
+    assertEquals("body", second.get());
+  }
+}
@@ -0,0 +1,117 @@
+package ch.uzh.ifi.hase.soprafs23.YTAPIManager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class VideoStatsCacheTest {
+
+  //answers like videos.list and remembers which ids were asked for in which call
+  private static class FakeVideoInfo implements VideoStatsCache.VideoInfoFetcher {
+    final List<List<String>> calls = new ArrayList<>();
+
+    @Override
+    public String fetch(List<String> videoIds) {
+      calls.add(new ArrayList<>(videoIds));
+      List<String> items = new ArrayList<>();
+      for (String id : videoIds) {
+        if (!id.startsWith("deleted")) {
+          items.add("{\"id\": \"" + id + "\", \"contentDetails\": {\"duration\": \"PT3M20S\"},"
+              + " \"statistics\": {\"viewCount\": \"1000\", \"likeCount\": \"10\"}}");
+        }
+      }
+      return "{\"items\": [" + String.join(",", items) + "]}";
+    }
+  }
+
+  private static List<String> ids(String prefix, int count) {
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      ids.add(prefix + i);
+    }
+    return ids;
+  }
+
+  @Test
+  public void readsTheFixture() throws Exception {
+    String json = APIController.readFile("src/main/resources/VideoInfoJson.txt");
+    var cache = new VideoStatsCache(Duration.ofHours(1), 100, ids -> json);
+
+    var stats = cache.get("5yx6BWlEVcY");
+    assertEquals(43761685, stats.views);
+    assertEquals(356179, stats.likes);
+    assertEquals(Duration.ZERO, stats.duration);
+  }
+
+  @Test
+  public void missingIdsAreFetchedInBatchesOfFifty() throws Exception {
+    var fake = new FakeVideoInfo();
+    var cache = new VideoStatsCache(Duration.ofHours(1), 1000, fake);
+
+    var stats = cache.getAll(ids("video", 120));
+    assertEquals(120, stats.size());
+    assertEquals(Duration.ofSeconds(200), stats.get("video7").duration);
+    assertEquals(3, fake.calls.size());
+    assertEquals(50, fake.calls.get(0).size());
+    assertEquals(50, fake.calls.get(1).size());
+    assertEquals(20, fake.calls.get(2).size());
+
+    List<String> someKnown = new ArrayList<>(ids("video", 10));
+    someKnown.addAll(ids("new", 5));
+    someKnown.add("new0"); //asked twice, fetched once
+    assertEquals(15, cache.getAll(someKnown).size());
+    assertEquals(4, fake.calls.size());
+    assertEquals(ids("new", 5), fake.calls.get(3));
+  }
+
+  @Test
+  public void unknownVideosAreLeftOut() throws Exception {
+    var cache = new VideoStatsCache(Duration.ofHours(1), 100, new FakeVideoInfo());
+
+    var stats = cache.getAll(List.of("video0", "deleted0"));
+    assertTrue(stats.containsKey("video0"));
+    assertFalse(stats.containsKey("deleted0"));
+    assertNull(cache.get("deleted1"));
+  }
+
+  @Test
+  public void expiredStatsAreFetchedAgain() throws Exception {
+    var fake = new FakeVideoInfo();
+    var fresh = new VideoStatsCache(Duration.ofHours(1), 100, fake);
+    fresh.get("video0");
+    fresh.get("video0");
+    assertEquals(1, fake.calls.size());
+
+    var expired = new VideoStatsCache(Duration.ZERO, 100, fake);
+    expired.get("video0");
+    expired.get("video0");
+    assertEquals(3, fake.calls.size());
+  }
+
+  @Test
+  public void keepsAtMostMaxEntries() throws Exception {
+    var fake = new FakeVideoInfo();
+    var cache = new VideoStatsCache(Duration.ofHours(1), 60, fake);
+
+    cache.getAll(ids("video", 100));
+    assertEquals(60, cache.size());
+    cache.get("video99"); //one of the most recent
+    assertEquals(2, fake.calls.size());
+    cache.get("video0"); //dropped
+    assertEquals(3, fake.calls.size());
+  }
+
+  @Test
+  public void invalidResponseFails() {
+    var cache = new VideoStatsCache(Duration.ofHours(1), 100, ids -> "{}");
+    assertThrows(IllegalStateException.class, () -> cache.get("video0"));
+  }
+}
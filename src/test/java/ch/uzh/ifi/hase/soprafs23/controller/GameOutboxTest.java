@@ -0,0 +1,140 @@
+package ch.uzh.ifi.hase.soprafs23.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class GameOutboxTest {
+
+  @Test
+  public void sendsOfOneGameKeepTheirOrder() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      var outbox = new GameOutbox(pool);
+      List<List<Integer>> sent = new ArrayList<>();
+      for (int g = 0; g < 3; g++) {
+        sent.add(Collections.synchronizedList(new ArrayList<>()));
+      }
+      var done = new CountDownLatch(3);
+      for (int i = 0; i < 1000; i++) {
+        for (int g = 0; g < 3; g++) {
+          int game = g;
+          int value = i;
+          outbox.send("game" + g, () -> sent.get(game).add(value));
+        }
+      }
+      for (int g = 0; g < 3; g++) {
+        outbox.send("game" + g, done::countDown);
+      }
+      assertTrue(done.await(10, TimeUnit.SECONDS));
+
+      for (List<Integer> l : sent) {
+        assertEquals(1000, l.size());
+        for (int i = 0; i < l.size(); i++) {
+          assertEquals(i, l.get(i));
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void slowGameDoesNotHoldUpAnother() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    try {
+      var outbox = new GameOutbox(pool);
+      var release = new CountDownLatch(1);
+      var otherSent = new CountDownLatch(1);
+      outbox.send("slow", () -> {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      outbox.send("other", otherSent::countDown);
+
+      assertTrue(otherSent.await(5, TimeUnit.SECONDS));
+      release.countDown();
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void failingSendDoesNotStopTheQueue() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(1);
+    try {
+      var outbox = new GameOutbox(pool);
+      var sent = new CountDownLatch(1);
+      outbox.send("game", () -> {
+        throw new IllegalStateException("broker down");
+      });
+      outbox.send("game", sent::countDown);
+      assertTrue(sent.await(5, TimeUnit.SECONDS));
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void closedGameQueueIsDropped() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(1);
+    try {
+      var outbox = new GameOutbox(pool);
+      var sent = new CountDownLatch(1);
+      outbox.send("game", sent::countDown);
+      outbox.close("game");
+      assertTrue(sent.await(5, TimeUnit.SECONDS));
+      for (int i = 0; i < 100 && outbox.getQueueCount() > 0; i++) {
+        Thread.sleep(10);
+      }
+      assertEquals(0, outbox.getQueueCount());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void sendsAfterTheCloseAreDropped() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(1);
+    try {
+      var outbox = new GameOutbox(pool);
+      var release = new CountDownLatch(1);
+      List<String> sent = Collections.synchronizedList(new ArrayList<>());
+      outbox.send("game", () -> {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        sent.add("before");
+      });
+      outbox.close("game");
+      outbox.send("game", () -> sent.add("while closing")); //the queue is not removed yet
+      release.countDown();
+      for (int i = 0; i < 100 && outbox.getQueueCount() > 0; i++) {
+        Thread.sleep(10);
+      }
+      outbox.send("game", () -> sent.add("after"));
+
+      assertEquals(0, outbox.getQueueCount());
+      var flushed = new CountDownLatch(1);
+      outbox.send("other", flushed::countDown); //the single dispatcher ran everything queued before
+      assertTrue(flushed.await(5, TimeUnit.SECONDS));
+      assertEquals(List.of("before"), sent);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
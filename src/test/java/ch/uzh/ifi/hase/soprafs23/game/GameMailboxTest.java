@@ -0,0 +1,170 @@
+package ch.uzh.ifi.hase.soprafs23.game;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class GameMailboxTest {
+
+  @Test
+  public void commandsOfOneGameNeverOverlap() throws Exception {
+    var mailbox = new GameMailbox();
+    int[] counter = { 0 }; //not synchronized on purpose, the mailbox is the only writer
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      var thread = new Thread(() -> {
+        for (int i = 0; i < 10_000; i++) {
+          mailbox.run(() -> counter[0]++);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (var thread : threads) {
+      thread.join();
+    }
+    assertEquals(40_000, mailbox.get(() -> counter[0]));
+  }
+
+  @Test
+  public void nestedCallsRunInline() {
+    var mailbox = new GameMailbox();
+    List<String> order = Collections.synchronizedList(new ArrayList<>());
+    mailbox.run(() -> {
+      order.add("outer");
+      order.add(mailbox.get(() -> "inner")); //would wait forever if it was queued
+      order.add("outer end");
+    });
+    assertEquals(List.of("outer", "inner", "outer end"), order);
+  }
+
+  @Test
+  public void exceptionsReachTheCaller() {
+    var mailbox = new GameMailbox();
+    var thrown = new IllegalCallerException("not your turn");
+    assertSame(thrown, assertThrows(IllegalCallerException.class, () -> mailbox.run(() -> {
+      throw thrown;
+    })));
+    assertThrows(IOException.class, () -> mailbox.call(() -> {
+      throw new IOException("YouTube is down");
+    }));
+    assertEquals("still working", mailbox.get(() -> "still working"));
+  }
+
+  @Test
+  public void busyGameDoesNotBlockAnother() throws Exception {
+    var busy = new GameMailbox();
+    var other = new GameMailbox();
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var thread = new Thread(() -> busy.run(() -> {
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }));
+    thread.start();
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    assertEquals(42, other.get(() -> 42));
+
+    release.countDown();
+    thread.join();
+  }
+
+  @Test
+  public void callerIsFreeOnceItsOwnCommandRan() throws Exception {
+    var mailbox = new GameMailbox();
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var releaseSlow = new CountDownLatch(1);
+    Thread[] ranOn = new Thread[1];
+
+    var first = new Thread(() -> mailbox.run(() -> {
+      started.countDown();
+      await(release);
+    }));
+    first.start();
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    var second = new Thread(() -> mailbox.run(() -> { //e.g. a nextRound which loads from YouTube
+      ranOn[0] = Thread.currentThread();
+      await(releaseSlow);
+    }));
+    second.start();
+    for (int i = 0; i < 500 && second.getState() != Thread.State.WAITING; i++) {
+      Thread.sleep(10);
+    }
+
+    try {
+      release.countDown();
+      first.join(5000);
+      assertFalse(first.isAlive()); //did not wait for the slow command queued after its own
+    } finally {
+      releaseSlow.countDown();
+    }
+    second.join(5000);
+    assertSame(second, ranOn[0]);
+  }
+
+  @Test
+  public void interruptedCallerLeavesTheQueue() throws Exception {
+    var mailbox = new GameMailbox();
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var ran = new boolean[1];
+    var interrupted = new boolean[1];
+
+    var first = new Thread(() -> mailbox.run(() -> {
+      started.countDown();
+      await(release);
+    }));
+    first.start();
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    var second = new Thread(() -> {
+      try {
+        mailbox.call(() -> ran[0] = true);
+      } catch (InterruptedException e) {
+        interrupted[0] = true;
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    second.start();
+    for (int i = 0; i < 500 && second.getState() != Thread.State.WAITING; i++) {
+      Thread.sleep(10);
+    }
+
+    try {
+      second.interrupt();
+      second.join(5000);
+      assertFalse(second.isAlive()); //did not wait for the busy command
+      assertTrue(interrupted[0]);
+    } finally {
+      release.countDown();
+    }
+    first.join(5000);
+    assertEquals("still working", mailbox.get(() -> "still working"));
+    assertFalse(ran[0]);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
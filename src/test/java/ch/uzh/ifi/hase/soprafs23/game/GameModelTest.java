@@ -0,0 +1,137 @@
+package ch.uzh.ifi.hase.soprafs23.game;
+
+import org.junit.jupiter.api.Test;
+
+import ch.uzh.ifi.hase.soprafs23.entity.Player;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class GameModelTest {
+
+  private static List<PlayerData> seat(GameModel gm, int count) {
+    List<PlayerData> l = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      gm.apply(new GameEvent.PlayerSeated(new Player("p" + i, "token" + i), 1000));
+      l.add(gm.getPlayerData(i));
+    }
+    return l;
+  }
+
+  private static void deal(GameModel gm) {
+    List<Hand> hands = new ArrayList<>();
+    for (int i = gm.getSeatedCount(); i > 0; i--) {
+      hands.add(new Hand());
+    }
+    gm.apply(new GameEvent.RoundDealt(null, hands));
+  }
+
+  @Test
+  public void nextSeatWrapsAround() {
+    long mask = 0b10110L; //seats 1, 2 and 4
+    assertEquals(1, GameModel.nextSeat(GameModel.NO_SEAT, mask));
+    assertEquals(2, GameModel.nextSeat(1, mask));
+    assertEquals(4, GameModel.nextSeat(2, mask));
+    assertEquals(1, GameModel.nextSeat(4, mask));
+    assertEquals(4, GameModel.nextSeat(3, mask));
+    assertEquals(0, GameModel.nextSeat(63, 1L));
+    assertEquals(63, GameModel.nextSeat(0, Long.MIN_VALUE));
+    assertEquals(GameModel.NO_SEAT, GameModel.nextSeat(3, 0L));
+  }
+
+  @Test
+  public void blindsFollowTheDealer() {
+    var gm = new GameModel();
+    seat(gm, 3);
+
+    gm.apply(new GameEvent.DealerMoved(2));
+    assertEquals("token0", gm.getSmallBlindPlayer().getToken());
+    assertEquals("token1", gm.getBigBlindPlayer().getToken());
+
+    gm.apply(new GameEvent.DealerMoved(gm.getNextSeatedAfter(gm.getDealerSeat())));
+    assertEquals("token0", gm.getDealerPlayer().getToken());
+    assertEquals("token1", gm.getSmallBlindPlayer().getToken());
+    assertEquals("token2", gm.getBigBlindPlayer().getToken());
+  }
+
+  @Test
+  public void nextPlayerSkipsFoldedAndLeftSeats() {
+    var gm = new GameModel();
+    seat(gm, 5);
+    deal(gm);
+    gm.apply(new GameEvent.DealerMoved(0));
+    gm.apply(new GameEvent.PlayerLeft(2, 0));
+    gm.apply(new GameEvent.BettingRoundStarted());
+    assertEquals("token1", gm.getCurrentPlayer().getToken());
+
+    gm.apply(new GameEvent.DecisionMade(1, Decision.FOLD, 0));
+    assertEquals("token3", gm.getCurrentPlayer().getToken());
+    gm.apply(new GameEvent.DecisionMade(3, Decision.CALL, 0));
+    gm.apply(new GameEvent.DecisionMade(4, Decision.CALL, 0));
+    gm.apply(new GameEvent.DecisionMade(0, Decision.CALL, 0));
+    assertEquals("token3", gm.getCurrentPlayer().getToken());
+  }
+
+  @Test
+  public void leftPlayerIsNoLongerFound() {
+    var gm = new GameModel();
+    var players = seat(gm, 3);
+    gm.apply(new GameEvent.PlayerLeft(1, 0));
+
+    assertNull(gm.getPlayerData(players.get(1).getPlayer()));
+    assertEquals(players.get(2), gm.getPlayerData(players.get(2).getPlayer()));
+    assertEquals(List.of(players.get(0), players.get(2)), gm.getPlayerDataCollection());
+  }
+
+  @Test
+  public void tableIsFullAfterMaxSeats() {
+    var gm = new GameModel();
+    seat(gm, GameModel.MAX_SEATS);
+    assertThrows(IllegalStateException.class,
+        () -> gm.apply(new GameEvent.PlayerSeated(new Player("late", "late"), 1000)));
+  }
+
+  @Test
+  public void replayGivesTheSameState() {
+    var gm = new GameModel();
+    seat(gm, 3);
+    deal(gm);
+    gm.apply(new GameEvent.DealerMoved(0));
+    gm.apply(new GameEvent.BettingRoundStarted());
+    gm.apply(new GameEvent.BlindPosted(1, 10, false));
+    gm.apply(new GameEvent.BlindPosted(2, 20, true));
+    gm.apply(new GameEvent.DecisionMade(0, Decision.RAISE, 50));
+    gm.apply(new GameEvent.DecisionMade(1, Decision.FOLD, 50));
+    var snapshot = gm.getEvents();
+    gm.apply(new GameEvent.DecisionMade(2, Decision.FOLD, 50));
+    gm.apply(new GameEvent.PotAwarded(0, gm.getPotAmount(), GamePhase.END_ALL_FOLDED));
+
+    assertEquals(10, snapshot.size());
+    assertEquals(12, gm.getLastSequence());
+    assertEquals(2, gm.getEventsSince(10).size());
+
+    var replayed = GameModel.replay(snapshot);
+    assertEquals(80, replayed.getPotAmount());
+    assertEquals(50, replayed.getCallAmount());
+    assertEquals("token2", replayed.getCurrentPlayer().getToken());
+    assertEquals(950, replayed.getPlayerData(0).getScore());
+
+    var end = GameModel.replay(gm.getEvents());
+    assertEquals(0, end.getPotAmount());
+    assertEquals("token0", end.getWinner().getToken());
+    assertEquals(1000 + 20 + 10, end.getPlayerData(0).getScore());
+    assertEquals(GamePhase.END_ALL_FOLDED, end.getGamePhase());
+  }
+
+  @Test
+  public void eventsMustComeInOrder() {
+    var gm = new GameModel();
+    seat(gm, 2);
+    var other = new GameModel();
+    assertThrows(IllegalArgumentException.class, () -> other.apply(gm.getEvents().get(1)));
+  }
+}
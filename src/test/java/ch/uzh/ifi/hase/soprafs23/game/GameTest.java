@@ -339,6 +339,20 @@ public class GameTest {
   }
 
 
+  @Test
+  public void everyCommandCommitsOnce() {
+    int commits = observer.commits;
+    game.call(observer.currentPlayer);
+    assertEquals(commits + 1, observer.commits);
+
+    var notCurrent = playerA.compareTo(observer.currentPlayer) ? playerB : playerA;
+    executableThrowsExceptionMsg(() -> game.call(notCurrent), "You're not the current player");
+    assertEquals(commits + 2, observer.commits); //also if the command did not work
+
+    game.getPlayers();
+    assertEquals(commits + 2, observer.commits); //reading is no command
+  }
+
   static void executableThrowsExceptionMsg(Executable call, String expectedMsg) {
     Exception exception = assertThrows(Exception.class, call);
 
@@ -361,6 +375,7 @@ public class GameTest {
     public Player currentPlayer;
     public VideoData videoData;
     public boolean closed = false;
+    public int commits = 0;
 
     @Override
     public void playerScoreChanged(String gameId, Player player, Integer score) {
@@ -430,6 +445,11 @@ public class GameTest {
     public void playerLeft(String gameId, Player p) {
       // TODO Auto-generated method stub
     }
+
+    @Override
+    public void changesCommitted(String gameId) {
+      commits++;
+    }
     
   }
 
@@ -0,0 +1,78 @@
+package ch.uzh.ifi.hase.soprafs23.game;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class HandDealerTest {
+
+  @Test
+  public void dealsEveryCardOnceWithoutChangingTheList() {
+    List<Integer> cards = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      cards.add(i);
+    }
+    var deck = new HandDealer().deck(cards);
+
+    Set<Integer> dealt = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      assertTrue(dealt.add(deck.next()));
+    }
+    assertEquals(0, deck.remaining());
+    assertThrows(IllegalStateException.class, () -> deck.next());
+    assertEquals(100, cards.size());
+    assertEquals(Integer.valueOf(42), cards.get(42));
+  }
+
+  @Test
+  public void sameSeedDealsSameCards() {
+    List<Integer> cards = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      cards.add(i);
+    }
+    var a = new HandDealer(7).deck(cards);
+    var b = new HandDealer(7).deck(cards);
+
+    for (int i = 0; i < 20; i++) {
+      assertEquals(a.next(), b.next());
+    }
+  }
+
+  @Test
+  public void concatIsOneList() {
+    List<List<String>> parts = List.of(List.of("a", "b"), List.of(), List.of("c"), List.of("d", "e"));
+
+    var all = HandDealer.concat(parts);
+
+    assertEquals(List.of("a", "b", "c", "d", "e"), all);
+  }
+
+  @Test
+  public void seededDealersDependOnlyOnTheirKey() {
+    List<Integer> cards = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      cards.add(i);
+    }
+    var a = HandDealer.create(7L, "videoA,videoB,");
+    HandDealer.create(7L, "other harvest").deck(cards).next(); //created in between, e.g. on another thread
+    var b = HandDealer.create(7L, "videoA,videoB,");
+    var deckA = a.deck(cards);
+    var deckB = b.deck(cards);
+    boolean sameAsOtherKey = true;
+    var other = HandDealer.create(7L, "videoA,videoC,").deck(cards);
+    for (int i = 0; i < 20; i++) {
+      int card = deckA.next();
+      assertEquals(card, deckB.next());
+      sameAsOtherKey &= card == other.next();
+    }
+    assertFalse(sameAsOtherKey);
+  }
+}